@@ -0,0 +1,180 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet.benchmarks;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.Path;
+import com.semanticcms.core.resources.servlet.ServletResource;
+import com.semanticcms.core.resources.servlet.ServletResourceConnection;
+import com.semanticcms.core.resources.servlet.ServletResourceStore;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the throughput of serving local files by copying through a {@link ServletResourceConnection}, as done by
+ * <code>ResourceServlet</code>, against {@linkplain ServletResource#dispatch(jakarta.servlet.ServletRequest, jakarta.servlet.ServletResponse) dispatching}
+ * to the default servlet of the {@link LocalServletContext} stand-in.
+ *
+ * <p>The stand-in only models a container serving from its static resource cache, so this measures the overhead of
+ * each path within this project.  The gains from sendfile and pre-compressed variants must be measured in the target
+ * container.</p>
+ *
+ * <p>Run with <code>java -jar target/benchmarks.jar DispatchBenchmark</code>.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class DispatchBenchmark {
+
+  private static final int RESOURCE_COUNT = 100;
+
+  @Param({"1024", "65536", "1048576"})
+  public int size;
+
+  private LocalServletContext localContext;
+  private ServletResourceStore store;
+  private Path[] paths;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException, ValidationException {
+    localContext = LocalServletContext.create(RESOURCE_COUNT, 0, size);
+    localContext.setInitParameter(ServletResourceStore.DISPATCH_INIT_PARAM, "true");
+    store = ServletResourceStore.getInstance(localContext.getServletContext(), Path.valueOf("/files"), true);
+    paths = new Path[RESOURCE_COUNT];
+    for (int i = 0; i < RESOURCE_COUNT; i++) {
+      paths[i] = Path.valueOf("/file-" + i + ".bin");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    localContext.close();
+  }
+
+  /**
+   * A response per thread, writing to the blackhole.
+   */
+  @State(Scope.Thread)
+  public static class Exchange {
+
+    private ServletRequest request;
+    private ServletResponse response;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+      ServletOutputStream out = new ServletOutputStream() {
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void write(int b) {
+          blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          blackhole.consume(b);
+          blackhole.consume(len);
+        }
+      };
+      request = (ServletRequest) Proxy.newProxyInstance(
+          ServletRequest.class.getClassLoader(),
+          new Class<?>[]{ServletRequest.class},
+          (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.toString());
+          }
+      );
+      response = (ServletResponse) Proxy.newProxyInstance(
+          ServletResponse.class.getClassLoader(),
+          new Class<?>[]{ServletResponse.class},
+          (proxy, method, args) -> {
+            switch (method.getName()) {
+              case "getOutputStream":
+                return out;
+              case "setContentLengthLong":
+                return null;
+              default:
+                throw new UnsupportedOperationException(method.toString());
+            }
+          }
+      );
+    }
+  }
+
+  private Path nextPath(Exchange exchange) {
+    int i = exchange.next;
+    exchange.next = (i + 1 == RESOURCE_COUNT) ? 0 : (i + 1);
+    return paths[i];
+  }
+
+  @Benchmark
+  public long copy(Exchange exchange) throws IOException {
+    try (
+        ServletResourceConnection conn = store.getResource(nextPath(exchange)).open();
+        InputStream in = conn.getInputStream()
+        ) {
+      exchange.response.setContentLengthLong(conn.getLength());
+      return in.transferTo(exchange.response.getOutputStream());
+    }
+  }
+
+  @Benchmark
+  public boolean dispatch(Exchange exchange) throws IOException, ServletException {
+    return store.getResource(nextPath(exchange)).dispatch(exchange.request, exchange.response);
+  }
+}
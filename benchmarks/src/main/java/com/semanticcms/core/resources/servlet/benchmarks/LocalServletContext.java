@@ -0,0 +1,328 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet.benchmarks;
+
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * A stand-in for the {@link ServletContext} of an exploded web application, with content both in a local directory
+ * and in a JAR file under <code>META-INF/resources</code>, as would be found in <code>/WEB-INF/lib</code>.
+ *
+ * <p>Only the methods used by the servlet resource store are implemented, along with a stand-in for dispatching to a
+ * default servlet.  All others throw {@link UnsupportedOperationException}.</p>
+ */
+public final class LocalServletContext implements AutoCloseable {
+
+  /**
+   * The context attribute containing the temporary directory.
+   */
+  private static final String TEMPDIR = "jakarta.servlet.context.tempdir";
+
+  private static final String JAR_RESOURCES = "META-INF/resources";
+
+  /**
+   * Creates a new context in a new temporary directory.
+   *
+   * @param  fileCount  The number of files to create in the local directory, named <code>/files/file-#.bin</code>.
+   * @param  jarCount   The number of entries to create in the JAR, named <code>/jar/entry-#.bin</code>.
+   * @param  size       The size of each file and entry.
+   */
+  public static LocalServletContext create(int fileCount, int jarCount, int size) throws IOException {
+    Path baseDir = Files.createTempDirectory(LocalServletContext.class.getSimpleName());
+    Path docBase = Files.createDirectory(baseDir.resolve("docBase"));
+    Path tempDir = Files.createDirectory(baseDir.resolve("temp"));
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) i;
+    }
+    Path filesDir = Files.createDirectory(docBase.resolve("files"));
+    for (int i = 0; i < fileCount; i++) {
+      Files.write(filesDir.resolve("file-" + i + ".bin"), content);
+    }
+    Path jar = baseDir.resolve("resources.jar");
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+      for (int i = 0; i < jarCount; i++) {
+        out.putNextEntry(new JarEntry(JAR_RESOURCES + "/jar/entry-" + i + ".bin"));
+        out.write(content);
+        out.closeEntry();
+      }
+    }
+    return new LocalServletContext(baseDir, docBase, tempDir, jar);
+  }
+
+  private final Path baseDir;
+  private final Path docBase;
+  private final Path tempDir;
+  private final Path jar;
+  private final JarFile jarFile;
+  private final String jarUrlPrefix;
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private final Map<String, String> initParameters = new ConcurrentHashMap<>();
+  private final Map<String, byte[]> defaultServletCache = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> resourceLookups = new ConcurrentHashMap<>();
+  private final Set<String> failingResources = ConcurrentHashMap.newKeySet();
+  private final ServletContext servletContext;
+
+  private LocalServletContext(Path baseDir, Path docBase, Path tempDir, Path jar) throws IOException {
+    this.baseDir = baseDir;
+    this.docBase = docBase;
+    this.tempDir = tempDir;
+    this.jar = jar;
+    this.jarFile = new JarFile(jar.toFile());
+    this.jarUrlPrefix = "jar:" + jar.toUri() + "!/" + JAR_RESOURCES;
+    attributes.put(TEMPDIR, tempDir.toFile());
+    servletContext = (ServletContext) Proxy.newProxyInstance(
+        ServletContext.class.getClassLoader(),
+        new Class<?>[]{ServletContext.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getRealPath":
+              return getRealPath((String) args[0]);
+            case "getResource":
+              return getResource((String) args[0]);
+            case "getResourceAsStream":
+              return getResourceAsStream((String) args[0]);
+            case "getResourcePaths":
+              return getResourcePaths((String) args[0]);
+            case "getRequestDispatcher":
+              return getRequestDispatcher((String) args[0]);
+            case "getAttribute":
+              return attributes.get((String) args[0]);
+            case "getAttributeNames":
+              return Collections.enumeration(attributes.keySet());
+            case "setAttribute":
+              if (args[1] == null) {
+                attributes.remove((String) args[0]);
+              } else {
+                attributes.put((String) args[0], args[1]);
+              }
+              return null;
+            case "removeAttribute":
+              attributes.remove((String) args[0]);
+              return null;
+            case "getInitParameter":
+              return initParameters.get((String) args[0]);
+            case "getInitParameterNames":
+              return Collections.enumeration(initParameters.keySet());
+            case "getContextPath":
+              return "";
+            case "getServletContextName":
+              return LocalServletContext.class.getSimpleName();
+            case "log":
+              return null;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            case "toString":
+              return LocalServletContext.class.getSimpleName() + ": " + docBase;
+            default:
+              throw new UnsupportedOperationException(method.toString());
+          }
+        }
+    );
+  }
+
+  /**
+   * Gets the {@link ServletContext} view of this context.
+   */
+  public ServletContext getServletContext() {
+    return servletContext;
+  }
+
+  /**
+   * Gets the local directory of the web application.
+   */
+  public Path getDocBase() {
+    return docBase;
+  }
+
+  /**
+   * Gets the temporary directory of the web application, where temporary files are created.
+   */
+  public Path getTempDir() {
+    return tempDir;
+  }
+
+  /**
+   * Gets the JAR file containing resources.
+   */
+  public Path getJar() {
+    return jar;
+  }
+
+  /**
+   * Gets the number of calls to {@link ServletContext#getResource(java.lang.String)} for the given path.
+   */
+  public long getResourceLookups(String path) {
+    LongAdder lookups = resourceLookups.get(path);
+    return (lookups == null) ? 0 : lookups.sum();
+  }
+
+  /**
+   * Makes {@link ServletContext#getResource(java.lang.String)} fail for the given path, such as for an unreadable
+   * resource.
+   */
+  public void setFailing(String path, boolean failing) {
+    if (failing) {
+      failingResources.add(path);
+    } else {
+      failingResources.remove(path);
+    }
+  }
+
+  /**
+   * Sets a context init parameter.  Must be set before any stores are created.
+   */
+  public void setInitParameter(String name, String value) {
+    initParameters.put(name, value);
+  }
+
+  private File getFile(String path) {
+    if (!path.startsWith("/")) {
+      throw new IllegalArgumentException(path);
+    }
+    return docBase.resolve(path.substring(1)).toFile();
+  }
+
+  private String getRealPath(String path) {
+    File file = getFile(path);
+    return file.exists() ? file.getPath() : null;
+  }
+
+  private URL getResource(String path) throws MalformedURLException {
+    resourceLookups.computeIfAbsent(path, p -> new LongAdder()).increment();
+    if (failingResources.contains(path)) {
+      throw new MalformedURLException("Failing: " + path);
+    }
+    return findResource(path);
+  }
+
+  private URL findResource(String path) throws MalformedURLException {
+    File file = getFile(path);
+    if (file.exists()) {
+      return file.toURI().toURL();
+    }
+    if (jarFile.getEntry(JAR_RESOURCES + path) != null) {
+      return URI.create(jarUrlPrefix + path).toURL();
+    }
+    return null;
+  }
+
+  private InputStream getResourceAsStream(String path) throws IOException {
+    URL url = findResource(path);
+    return (url == null) ? null : url.openStream();
+  }
+
+  private Set<String> getResourcePaths(String path) throws IOException {
+    if (!path.endsWith("/")) {
+      path += '/';
+    }
+    Set<String> paths = new TreeSet<>();
+    File dir = getFile(path);
+    String[] list = dir.list();
+    if (list != null) {
+      for (String name : list) {
+        paths.add(path + name + (new File(dir, name).isDirectory() ? "/" : ""));
+      }
+    }
+    String entryPrefix = JAR_RESOURCES + path;
+    Enumeration<JarEntry> entries = jarFile.entries();
+    while (entries.hasMoreElements()) {
+      String name = entries.nextElement().getName();
+      if (name.length() > entryPrefix.length() && name.startsWith(entryPrefix)) {
+        String remaining = name.substring(entryPrefix.length());
+        int slash = remaining.indexOf('/');
+        paths.add(path + (slash == -1 ? remaining : remaining.substring(0, slash + 1)));
+      }
+    }
+    return paths.isEmpty() ? null : paths;
+  }
+
+  /**
+   * Gets a stand-in for dispatching to the container's default servlet, which serves local files from an in-memory
+   * cache of their content, writing each in a single call, similar to the static resource cache of a container.
+   * Resources in the JAR file are not dispatched.
+   */
+  private RequestDispatcher getRequestDispatcher(String path) {
+    File file = getFile(path);
+    if (!file.isFile()) {
+      return null;
+    }
+    return new RequestDispatcher() {
+      @Override
+      public void forward(ServletRequest request, ServletResponse response) throws IOException {
+        byte[] content = defaultServletCache.get(path);
+        if (content == null) {
+          content = Files.readAllBytes(file.toPath());
+          defaultServletCache.put(path, content);
+        }
+        response.setContentLengthLong(content.length);
+        response.getOutputStream().write(content);
+      }
+
+      @Override
+      public void include(ServletRequest request, ServletResponse response) {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Closes the JAR file and deletes all files.
+   */
+  @Override
+  public void close() throws IOException {
+    jarFile.close();
+    try (Stream<Path> paths = Files.walk(baseDir)) {
+      for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet.benchmarks;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.Path;
+import com.semanticcms.core.resources.servlet.ServletResource;
+import com.semanticcms.core.resources.servlet.ServletResourceAttributes;
+import com.semanticcms.core.resources.servlet.ServletResourceStore;
+import jakarta.servlet.ServletContext;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the per-lookup allocation of {@link ServletResourceStore#getInstance(jakarta.servlet.ServletContext, com.aoapps.net.Path, boolean)}
+ * and {@link ServletResourceStore#getResource(com.aoapps.net.Path)}, with and without reuse of resources.
+ *
+ * <p>Run with <code>java -jar target/benchmarks.jar ResourceLookupBenchmark -prof gc</code>.  With reuse enabled,
+ * <code>gc.alloc.rate.norm</code> should be near zero bytes per operation for both <code>getInstance</code> and
+ * <code>getResource</code>.</p>
+ *
+ * <p>Runs single-threaded.  See {@link Threaded} for the same benchmarks run on all processors, where the time per
+ * <code>getResource</code> hit should stay near the single-threaded time, since hits do not take a lock.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class ResourceLookupBenchmark {
+
+  /**
+   * The same benchmarks run on all available processors.
+   */
+  @Threads(Threads.MAX)
+  public static class Threaded extends ResourceLookupBenchmark {
+    // All benchmarks inherited
+  }
+
+  private static final int RESOURCE_COUNT = 1000;
+
+  @Param({"true", "false"})
+  public boolean cached;
+
+  /**
+   * The value for {@link ServletResourceStore#RESOURCE_CACHE_MAX_ENTRIES_INIT_PARAM}, where zero disables reuse.
+   */
+  @Param({"10000", "0"})
+  public int resourceCacheMaxEntries;
+
+  private LocalServletContext localContext;
+  private ServletContext servletContext;
+  private Path storePath;
+  private ServletResourceStore store;
+  private Path[] paths;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException, ValidationException {
+    localContext = LocalServletContext.create(RESOURCE_COUNT, 0, 16);
+    localContext.setInitParameter(
+        ServletResourceStore.RESOURCE_CACHE_MAX_ENTRIES_INIT_PARAM,
+        Integer.toString(resourceCacheMaxEntries)
+    );
+    servletContext = localContext.getServletContext();
+    storePath = Path.valueOf("/files");
+    store = ServletResourceStore.getInstance(servletContext, storePath, cached);
+    paths = new Path[RESOURCE_COUNT];
+    for (int i = 0; i < RESOURCE_COUNT; i++) {
+      paths[i] = Path.valueOf("/file-" + i + ".bin");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    localContext.close();
+  }
+
+  /**
+   * The position of each thread cycling through the resources, so threads do not write to a shared field.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+
+    private int next;
+  }
+
+  private Path nextPath(Cursor cursor) {
+    int i = cursor.next;
+    cursor.next = (i + 1 == RESOURCE_COUNT) ? 0 : (i + 1);
+    return paths[i];
+  }
+
+  @Benchmark
+  public ServletResourceStore getInstance() {
+    return ServletResourceStore.getInstance(servletContext, storePath, cached);
+  }
+
+  @Benchmark
+  public ServletResource getResource(Cursor cursor) {
+    return store.getResource(nextPath(cursor));
+  }
+
+  @Benchmark
+  public ServletResourceAttributes stat(Cursor cursor) throws IOException {
+    return store.stat(nextPath(cursor));
+  }
+}
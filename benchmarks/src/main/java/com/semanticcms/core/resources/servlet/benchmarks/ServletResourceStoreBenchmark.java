@@ -0,0 +1,193 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet.benchmarks;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.Path;
+import com.semanticcms.core.resources.servlet.ServletResource;
+import com.semanticcms.core.resources.servlet.ServletResourceConnection;
+import com.semanticcms.core.resources.servlet.ServletResourceStore;
+import jakarta.servlet.ServletContext;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the hot paths of {@link ServletResourceStore}, {@link ServletResource}, and
+ * {@link ServletResourceConnection}, both cached and uncached, for both local files and resources in a JAR file.
+ *
+ * <p>Runs single-threaded.  See {@link Threaded} for the same benchmarks run on all processors.</p>
+ *
+ * <p>Run with <code>java -jar target/benchmarks.jar ServletResourceStoreBenchmark</code>.
+ * Add <code>-prof gc</code> to measure allocation rates.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class ServletResourceStoreBenchmark {
+
+  /**
+   * The same benchmarks run on all available processors.
+   */
+  @Threads(Threads.MAX)
+  public static class Threaded extends ServletResourceStoreBenchmark {
+    // All benchmarks inherited
+  }
+
+  private static final int RESOURCE_COUNT = 100;
+
+  private static final int RESOURCE_SIZE = 16 * 1024;
+
+  @Param({"true", "false"})
+  public boolean cached;
+
+  /**
+   * Where the resources are stored: "file" for the local directory or "jar" for the JAR file.
+   */
+  @Param({"file", "jar"})
+  public String backing;
+
+  private LocalServletContext localContext;
+  private ServletContext servletContext;
+  private Path storePath;
+  private ServletResourceStore store;
+  private Path[] paths;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException, ValidationException {
+    localContext = LocalServletContext.create(RESOURCE_COUNT, RESOURCE_COUNT, RESOURCE_SIZE);
+    servletContext = localContext.getServletContext();
+    String name;
+    switch (backing) {
+      case "file":
+        storePath = Path.valueOf("/files");
+        name = "/file-";
+        break;
+      case "jar":
+        storePath = Path.valueOf("/jar");
+        name = "/entry-";
+        break;
+      default:
+        throw new IllegalArgumentException("Unexpected backing: " + backing);
+    }
+    store = ServletResourceStore.getInstance(servletContext, storePath, cached);
+    paths = new Path[RESOURCE_COUNT];
+    for (int i = 0; i < RESOURCE_COUNT; i++) {
+      paths[i] = Path.valueOf(name + i + ".bin");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    localContext.close();
+  }
+
+  /**
+   * The position of each thread cycling through the resources, so threads do not write to a shared field.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+
+    private int next;
+  }
+
+  private Path nextPath(Cursor cursor) {
+    int i = cursor.next;
+    cursor.next = (i + 1 == RESOURCE_COUNT) ? 0 : (i + 1);
+    return paths[i];
+  }
+
+  @Benchmark
+  public ServletResourceStore getInstance() {
+    return ServletResourceStore.getInstance(servletContext, storePath, cached);
+  }
+
+  @Benchmark
+  public ServletResource getResource(Cursor cursor) {
+    return store.getResource(nextPath(cursor));
+  }
+
+  @Benchmark
+  public boolean exists(Cursor cursor) throws IOException {
+    try (ServletResourceConnection conn = store.getResource(nextPath(cursor)).open()) {
+      return conn.exists();
+    }
+  }
+
+  @Benchmark
+  public long getLength(Cursor cursor) throws IOException {
+    try (ServletResourceConnection conn = store.getResource(nextPath(cursor)).open()) {
+      return conn.getLength();
+    }
+  }
+
+  @Benchmark
+  public long getLastModified(Cursor cursor) throws IOException {
+    try (ServletResourceConnection conn = store.getResource(nextPath(cursor)).open()) {
+      return conn.getLastModified();
+    }
+  }
+
+  @Benchmark
+  public void getInputStream(Cursor cursor, Blackhole blackhole) throws IOException {
+    byte[] buff = new byte[8192];
+    try (
+        ServletResourceConnection conn = store.getResource(nextPath(cursor)).open();
+        InputStream in = conn.getInputStream()
+        ) {
+      int count;
+      while ((count = in.read(buff)) != -1) {
+        blackhole.consume(count);
+      }
+    }
+  }
+
+  @Benchmark
+  public long getFile(Cursor cursor) throws IOException {
+    try (ServletResourceConnection conn = store.getResource(nextPath(cursor)).open()) {
+      File file = conn.getFile();
+      return file.length();
+    }
+  }
+}
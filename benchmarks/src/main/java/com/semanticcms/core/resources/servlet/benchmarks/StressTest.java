@@ -0,0 +1,620 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.resources.servlet.benchmarks;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.Path;
+import com.semanticcms.core.resources.servlet.ServletResource;
+import com.semanticcms.core.resources.servlet.ServletResourceAttributes;
+import com.semanticcms.core.resources.servlet.ServletResourceConnection;
+import com.semanticcms.core.resources.servlet.ServletResourceStore;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stresses {@link ServletResourceStore} and {@link ServletResourceConnection} from many threads while files are
+ * created, modified, and deleted, reporting throughput and latency percentiles per thread count along with any
+ * incorrect results.
+ *
+ * <p>Each run uses a new {@link LocalServletContext} containing stable local files, stable JAR entries, and a
+ * directory of files that are continually replaced or deleted by a separate thread.  Replacements are atomic renames,
+ * and each version of a churned file has every byte equal to its length, so any read mixing versions is detected.
+ * The following are reported as errors:</p>
+ * <ul>
+ *   <li>Incorrect content or length of a stable resource</li>
+ *   <li>Content of a churned file that does not match a single version</li>
+ *   <li>A length that does not match the content read, when the file was not changed during the operation and the
+ *       mode does not allow stale lengths</li>
+ *   <li>Churned files not reported correctly, by both lookup and directory walk, once churn stops and the store is
+ *       invalidated</li>
+ *   <li>Temporary files left behind once the stores are destroyed</li>
+ *   <li>Anything thrown by a reading thread or the churn thread, including assertion failures</li>
+ * </ul>
+ *
+ * <p>Results that are stale only within the freshness rules of the mode, such as a lookup made before the watch
+ * service reports a change, are counted in the <code>stale</code> column instead.</p>
+ *
+ * <p>This is not a JMH benchmark, since the operations are deliberately mixed with concurrent changes.  Run with
+ * <code>java -cp target/benchmarks.jar com.semanticcms.core.resources.servlet.benchmarks.StressTest</code>,
+ * optionally followed by any of:</p>
+ * <ul>
+ *   <li><code>duration=<i>seconds</i></code> - the time for each run, default 10</li>
+ *   <li><code>threads=<i>n,n,...</i></code> - the thread counts, default powers of two up to twice the number of
+ *       processors</li>
+ *   <li><code>modes=<i>mode,mode,...</i></code> - any of <code>uncached</code>, <code>cached</code>,
+ *       <code>watch</code>, and <code>adaptive</code>, default all</li>
+ * </ul>
+ *
+ * <p>Exits with status 1 when any errors are found.</p>
+ */
+public final class StressTest {
+
+  private static final int FILE_COUNT = 100;
+
+  private static final int JAR_COUNT = 100;
+
+  private static final int RESOURCE_SIZE = 16 * 1024;
+
+  private static final int CHURN_COUNT = 50;
+
+  /**
+   * The maximum length of each version of a churned file.
+   */
+  private static final int CHURN_MAX_LENGTH = 8192;
+
+  /**
+   * The maximum time for the store to report the final state of churned files once churn stops.
+   */
+  private static final long SETTLE_MILLIS = 30000;
+
+  /**
+   * The maximum number of error messages displayed per run.
+   */
+  private static final int MAX_MESSAGES = 10;
+
+  /**
+   * How each store is configured, and which results may be stale within the freshness rules of the mode.
+   */
+  private enum Mode {
+    UNCACHED(false, true, true),
+    CACHED(true, false, true),
+    WATCH(true, false, false),
+    ADAPTIVE(true, false, false);
+
+    private final boolean cached;
+
+    /**
+     * When existence must be current once a file is not being changed.
+     */
+    private final boolean strictExists;
+
+    /**
+     * When lengths must be current once a file is not being changed.
+     */
+    private final boolean strictLength;
+
+    private Mode(boolean cached, boolean strictExists, boolean strictLength) {
+      this.cached = cached;
+      this.strictExists = strictExists;
+      this.strictLength = strictLength;
+    }
+
+    private void configure(LocalServletContext localContext) {
+      switch (this) {
+        case WATCH:
+          localContext.setInitParameter(ServletResourceStore.WATCH_INIT_PARAM, "true");
+          break;
+        case ADAPTIVE:
+          localContext.setInitParameter(ServletResourceStore.ADAPTIVE_INIT_PARAM, "true");
+          break;
+        default:
+          // Defaults
+      }
+    }
+
+    @Override
+    public String toString() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * A latency histogram for a single thread, with eight sub-buckets per power of two nanoseconds.
+   */
+  private static final class Latencies {
+
+    private static final int SUB_BITS = 3;
+
+    private final long[] counts = new long[(Long.SIZE + 1) << SUB_BITS];
+
+    private static int bucket(long nanos) {
+      int bits = Long.SIZE - Long.numberOfLeadingZeros(nanos);
+      if (bits <= SUB_BITS) {
+        return (int) nanos;
+      }
+      int sub = (int) (nanos >>> (bits - SUB_BITS - 1)) & ((1 << SUB_BITS) - 1);
+      return (bits << SUB_BITS) + sub;
+    }
+
+    /**
+     * Gets the upper bound of a bucket.
+     */
+    private static long upperBound(int bucket) {
+      int bits = bucket >>> SUB_BITS;
+      if (bits <= SUB_BITS) {
+        return bucket;
+      }
+      int sub = bucket & ((1 << SUB_BITS) - 1);
+      return ((long) ((1 << SUB_BITS) + sub + 1)) << (bits - SUB_BITS - 1);
+    }
+
+    private void record(long nanos) {
+      counts[bucket(Math.max(0, nanos))]++;
+    }
+
+    private void add(Latencies other) {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] += other.counts[i];
+      }
+    }
+
+    private long getCount() {
+      long count = 0;
+      for (long c : counts) {
+        count += c;
+      }
+      return count;
+    }
+
+    private long getPercentileNanos(double percentile) {
+      long target = (long) Math.ceil(getCount() * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= target && counts[i] != 0) {
+          return upperBound(i);
+        }
+      }
+      return 0;
+    }
+  }
+
+  /**
+   * The results of one run.
+   */
+  private static final class Run {
+
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong staleReads = new AtomicLong();
+    private final AtomicLong churnOps = new AtomicLong();
+    private final Queue<String> messages = new ConcurrentLinkedQueue<>();
+    private final Latencies latencies = new Latencies();
+
+    private void error(String message) {
+      if (errors.incrementAndGet() <= MAX_MESSAGES) {
+        messages.add(message);
+      }
+    }
+  }
+
+  private final Mode mode;
+  private final int threads;
+  private final long durationMillis;
+
+  private LocalServletContext localContext;
+  private java.nio.file.Path churnDir;
+  private ServletResourceStore filesStore;
+  private ServletResourceStore jarStore;
+  private ServletResourceStore churnStore;
+  private Path[] filePaths;
+  private Path[] jarPaths;
+  private Path[] churnPaths;
+
+  /**
+   * Incremented before and after each change to a churned file, so readers can tell when a file was changed during
+   * an operation.
+   */
+  private AtomicInteger[] churnSequences;
+
+  private volatile boolean running;
+
+  private StressTest(Mode mode, int threads, long durationMillis) {
+    this.mode = mode;
+    this.threads = threads;
+    this.durationMillis = durationMillis;
+  }
+
+  /**
+   * The content of the given version of a churned file: every byte equal to the length.
+   */
+  private static byte[] churnContent(int length) {
+    byte[] content = new byte[length];
+    Arrays.fill(content, (byte) length);
+    return content;
+  }
+
+  private void setup() throws IOException, ValidationException {
+    localContext = LocalServletContext.create(FILE_COUNT, JAR_COUNT, RESOURCE_SIZE);
+    mode.configure(localContext);
+    churnDir = Files.createDirectory(localContext.getDocBase().resolve("churn"));
+    churnPaths = new Path[CHURN_COUNT];
+    churnSequences = new AtomicInteger[CHURN_COUNT];
+    for (int i = 0; i < CHURN_COUNT; i++) {
+      Files.write(churnDir.resolve("churn-" + i + ".bin"), churnContent(1 + i));
+      churnPaths[i] = Path.valueOf("/churn-" + i + ".bin");
+      churnSequences[i] = new AtomicInteger();
+    }
+    filePaths = new Path[FILE_COUNT];
+    for (int i = 0; i < FILE_COUNT; i++) {
+      filePaths[i] = Path.valueOf("/file-" + i + ".bin");
+    }
+    jarPaths = new Path[JAR_COUNT];
+    for (int i = 0; i < JAR_COUNT; i++) {
+      jarPaths[i] = Path.valueOf("/entry-" + i + ".bin");
+    }
+    ServletContext servletContext = localContext.getServletContext();
+    filesStore = ServletResourceStore.getInstance(servletContext, Path.valueOf("/files"), mode.cached);
+    jarStore = ServletResourceStore.getInstance(servletContext, Path.valueOf("/jar"), mode.cached);
+    churnStore = ServletResourceStore.getInstance(servletContext, Path.valueOf("/churn"), mode.cached);
+  }
+
+  /**
+   * Replaces or deletes random churned files until stopped.
+   */
+  private void churn(Run run) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    java.nio.file.Path temp = churnDir.resolveSibling("churn.tmp");
+    try {
+      while (running) {
+        int i = random.nextInt(CHURN_COUNT);
+        java.nio.file.Path file = churnDir.resolve("churn-" + i + ".bin");
+        AtomicInteger sequence = churnSequences[i];
+        sequence.incrementAndGet();
+        try {
+          if (random.nextInt(4) == 0) {
+            Files.deleteIfExists(file);
+          } else {
+            Files.write(temp, churnContent(1 + random.nextInt(CHURN_MAX_LENGTH)));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          }
+        } finally {
+          sequence.incrementAndGet();
+        }
+        run.churnOps.incrementAndGet();
+        // Leave time between changes so readers see both quiet and changing files
+        TimeUnit.MICROSECONDS.sleep(random.nextInt(1000));
+      }
+    } catch (IOException e) {
+      run.error("Churn failed: " + e);
+    } catch (InterruptedException e) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Performs random operations until stopped.
+   */
+  private void read(Run run, Latencies latencies) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    byte[] buff = new byte[8192];
+    while (running) {
+      int target = random.nextInt(3);
+      int op = random.nextInt(10);
+      long startNanos = System.nanoTime();
+      try {
+        switch (target) {
+          case 0:
+            checkStable(run, filesStore.getResource(filePaths[random.nextInt(FILE_COUNT)]), op, buff);
+            break;
+          case 1:
+            checkStable(run, jarStore.getResource(jarPaths[random.nextInt(JAR_COUNT)]), op, buff);
+            break;
+          default:
+            int i = random.nextInt(CHURN_COUNT);
+            checkChurned(run, churnStore.getResource(churnPaths[i]), churnSequences[i], op, buff);
+        }
+      } catch (IOException | RuntimeException e) {
+        run.error("Operation failed: " + e);
+      }
+      latencies.record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Checks a resource that never changes, by either its attributes, its content, or its file.
+   */
+  private static void checkStable(Run run, ServletResource resource, int op, byte[] buff) throws IOException {
+    try (ServletResourceConnection conn = resource.open()) {
+      if (!conn.exists()) {
+        run.error("Missing: " + resource);
+        return;
+      }
+      long length = conn.getLength();
+      if (length != RESOURCE_SIZE) {
+        run.error("Incorrect length: " + resource + ": " + length);
+      }
+      if (op < 4) {
+        if (conn.getLastModified() == 0) {
+          run.error("Unknown last modified: " + resource);
+        }
+      } else if (op < 8) {
+        long total = 0;
+        try (InputStream in = conn.getInputStream()) {
+          int count;
+          while ((count = in.read(buff)) != -1) {
+            for (int i = 0; i < count; i++) {
+              if (buff[i] != (byte) (total + i)) {
+                run.error("Incorrect content: " + resource + " at " + (total + i));
+                return;
+              }
+            }
+            total += count;
+          }
+        }
+        if (total != RESOURCE_SIZE) {
+          run.error("Incorrect content length: " + resource + ": " + total);
+        }
+      } else {
+        File file = conn.getFile();
+        if (file.length() != RESOURCE_SIZE) {
+          run.error("Incorrect file length: " + resource + ": " + file.length());
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks a resource that may be changing, comparing its length with its content when not changed during the
+   * operation.
+   */
+  private void checkChurned(Run run, ServletResource resource, AtomicInteger sequence, int op, byte[] buff) throws IOException {
+    int startSequence = sequence.get();
+    try (ServletResourceConnection conn = resource.open()) {
+      boolean exists = conn.exists();
+      long length;
+      long total;
+      if (!exists) {
+        length = -1;
+        total = -1;
+      } else {
+        length = conn.getLength();
+        if (op < 4) {
+          total = length;
+        } else {
+          total = 0;
+          try (InputStream in = conn.getInputStream()) {
+            int count;
+            while ((count = in.read(buff)) != -1) {
+              total += count;
+              for (int i = 0; i < count; i++) {
+                if (buff[i] != buff[0]) {
+                  run.error("Content mixes versions: " + resource);
+                  return;
+                }
+              }
+            }
+          } catch (FileNotFoundException e) {
+            // Deleted since checked
+            total = -1;
+          }
+          if (total > 0 && buff[0] != (byte) total) {
+            run.error("Content does not match a single version: " + resource + ": " + total);
+          }
+        }
+      }
+      boolean fileExists = Files.exists(churnDir.resolve(resource.getPath().toString().substring(1)));
+      if (startSequence % 2 == 0 && sequence.get() == startSequence) {
+        // Not changed during the operation
+        if (exists != fileExists || (exists && length != total)) {
+          if (exists != fileExists ? mode.strictExists : mode.strictLength) {
+            run.error("Stale result: " + resource + ": exists=" + exists + ", file exists=" + fileExists
+                + ", length=" + length + ", content length=" + total);
+          } else {
+            run.staleReads.incrementAndGet();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits for the store to report the final state of the churned files, by both lookup and directory walk.
+   *
+   * @return  the milliseconds until reported correctly
+   */
+  private long settle(Run run) throws IOException, InterruptedException {
+    churnStore.invalidateAll();
+    long startNanos = System.nanoTime();
+    List<String> mismatches;
+    do {
+      mismatches = new ArrayList<>();
+      Set<String> expected = new HashSet<>();
+      for (Path churnPath : churnPaths) {
+        java.nio.file.Path file = churnDir.resolve(churnPath.toString().substring(1));
+        long fileLength = Files.exists(file) ? Files.size(file) : -1;
+        if (fileLength != -1) {
+          expected.add(churnPath.toString());
+        }
+        ServletResourceAttributes attributes = churnStore.stat(churnPath);
+        long length = (attributes == null) ? -1 : attributes.getLength();
+        if (length != fileLength) {
+          mismatches.add("Stale after churn: " + churnPath + ": length=" + length + ", file length=" + fileLength);
+        }
+      }
+      Set<String> walked;
+      try (Stream<ServletResource> resources = churnStore.walk(Path.valueOf("/"))) {
+        walked = resources.map(resource -> resource.getPath().toString()).collect(Collectors.toSet());
+      } catch (ValidationException e) {
+        throw new AssertionError(e);
+      }
+      if (!walked.equals(expected)) {
+        mismatches.add("Stale directory walk: " + walked.size() + " resources, " + expected.size() + " files");
+      }
+      if (mismatches.isEmpty()) {
+        break;
+      }
+      TimeUnit.MILLISECONDS.sleep(100);
+    } while (System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(SETTLE_MILLIS));
+    for (String mismatch : mismatches) {
+      run.error(mismatch);
+    }
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Destroys the stores and counts the temporary files left behind.
+   */
+  private long countLeakedTempFiles() throws IOException {
+    new ServletResourceStore.Initializer().contextDestroyed(new ServletContextEvent(localContext.getServletContext()));
+    try (Stream<java.nio.file.Path> paths = Files.walk(localContext.getTempDir())) {
+      return paths.filter(Files::isRegularFile).count();
+    }
+  }
+
+  private Run run() throws IOException, ValidationException, InterruptedException {
+    Run run = new Run();
+    setup();
+    try {
+      running = true;
+      Thread churner = new Thread(() -> churn(run), StressTest.class.getSimpleName() + "-churn");
+      Latencies[] threadLatencies = new Latencies[threads];
+      Thread[] readers = new Thread[threads];
+      for (int i = 0; i < threads; i++) {
+        Latencies latencies = new Latencies();
+        threadLatencies[i] = latencies;
+        readers[i] = new Thread(() -> read(run, latencies), StressTest.class.getSimpleName() + "-" + i);
+      }
+      Thread.UncaughtExceptionHandler failed = (thread, e) -> run.error(thread.getName() + " failed: " + e);
+      churner.setUncaughtExceptionHandler(failed);
+      for (Thread reader : readers) {
+        reader.setUncaughtExceptionHandler(failed);
+      }
+      long startNanos = System.nanoTime();
+      churner.start();
+      for (Thread reader : readers) {
+        reader.start();
+      }
+      TimeUnit.MILLISECONDS.sleep(durationMillis);
+      running = false;
+      churner.join();
+      for (Thread reader : readers) {
+        reader.join();
+      }
+      long elapsedNanos = System.nanoTime() - startNanos;
+      for (Latencies latencies : threadLatencies) {
+        run.latencies.add(latencies);
+      }
+      long settleMillis = settle(run);
+      long leaked = countLeakedTempFiles();
+      if (leaked != 0) {
+        run.error("Temporary files left behind: " + leaked);
+      }
+      long ops = run.latencies.getCount();
+      System.out.printf(
+          "%-8s %7d %12d %12.0f %9.1f %9.1f %9.1f %9.1f %9d %7d %9d %6d%n",
+          mode,
+          threads,
+          ops,
+          ops * 1e9 / elapsedNanos,
+          run.latencies.getPercentileNanos(50) / 1e3,
+          run.latencies.getPercentileNanos(90) / 1e3,
+          run.latencies.getPercentileNanos(99) / 1e3,
+          run.latencies.getPercentileNanos(99.9) / 1e3,
+          run.churnOps.get(),
+          run.staleReads.get(),
+          settleMillis,
+          run.errors.get()
+      );
+      for (String message : run.messages) {
+        System.out.println("  ERROR: " + message);
+      }
+      return run;
+    } finally {
+      running = false;
+      localContext.close();
+    }
+  }
+
+  public static void main(String[] args) throws IOException, ValidationException, InterruptedException {
+    long durationMillis = TimeUnit.SECONDS.toMillis(10);
+    List<Integer> threadCounts = new ArrayList<>();
+    for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors() * 2; threads *= 2) {
+      threadCounts.add(threads);
+    }
+    List<Mode> modes = Arrays.asList(Mode.values());
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      String name = (eq == -1) ? arg : arg.substring(0, eq);
+      String value = (eq == -1) ? "" : arg.substring(eq + 1);
+      switch (name) {
+        case "duration":
+          durationMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+          break;
+        case "threads":
+          threadCounts = Arrays.stream(value.split(",")).map(Integer::valueOf).collect(Collectors.toList());
+          break;
+        case "modes":
+          modes = Arrays.stream(value.split(","))
+              .map(mode -> Mode.valueOf(mode.toUpperCase(Locale.ROOT)))
+              .collect(Collectors.toList());
+          break;
+        default:
+          throw new IllegalArgumentException("Unexpected argument: " + arg);
+      }
+    }
+    System.out.printf(
+        "%-8s %7s %12s %12s %9s %9s %9s %9s %9s %7s %9s %6s%n",
+        "mode", "threads", "ops", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "churn", "stale", "settle ms", "errors"
+    );
+    long errors = 0;
+    for (Mode mode : modes) {
+      for (int threads : threadCounts) {
+        errors += new StressTest(mode, threads, durationMillis).run().errors.get();
+      }
+    }
+    if (errors != 0) {
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.Path;
+import com.semanticcms.core.resources.servlet.ServletResourceConnection;
+import com.semanticcms.core.resources.servlet.ServletResourceStore;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletContextEvent;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests {@link ServletResourceStore#PRE_INDEX_INIT_PARAM}.
+ */
+public class PreIndexTest {
+
+  private static long getLength(ServletResourceStore store, String path) throws IOException, ValidationException {
+    try (ServletResourceConnection conn = store.getResource(Path.valueOf(path)).open()) {
+      return conn.getLength();
+    }
+  }
+
+  @Test
+  public void testFailingResourceLeftUnindexed() throws IOException, ValidationException, InterruptedException {
+    try (LocalServletContext localContext = LocalServletContext.create(0, 3, 16)) {
+      ServletContext servletContext = localContext.getServletContext();
+      localContext.setInitParameter(ServletResourceStore.PRE_INDEX_INIT_PARAM, "/jar");
+      localContext.setFailing("/jar/entry-1.bin", true);
+      ServletResourceStore.Initializer initializer = new ServletResourceStore.Initializer();
+      initializer.contextInitialized(new ServletContextEvent(servletContext));
+      try {
+        ServletResourceStore store = ServletResourceStore.getInstance(servletContext, Path.valueOf("/jar"));
+        // Indexed in the background, with the entry after the failing one answered from the index once built
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (true) {
+          assertEquals(16, getLength(store, "/entry-2.bin"));
+          if (store.getMetrics().getIndexHits() > 0) {
+            break;
+          }
+          assertTrue("Index not built", System.nanoTime() < deadline);
+          TimeUnit.MILLISECONDS.sleep(10);
+        }
+        long indexHits = store.getMetrics().getIndexHits();
+        assertEquals(16, getLength(store, "/entry-0.bin"));
+        assertEquals("Indexed despite another resource failing", indexHits + 1, store.getMetrics().getIndexHits());
+        localContext.setFailing("/jar/entry-1.bin", false);
+        assertEquals(16, getLength(store, "/entry-1.bin"));
+        assertEquals("Failing resource looked-up as usual", indexHits + 1, store.getMetrics().getIndexHits());
+      } finally {
+        initializer.contextDestroyed(new ServletContextEvent(servletContext));
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.Path;
+import com.semanticcms.core.resources.servlet.ServletResourceConnection;
+import com.semanticcms.core.resources.servlet.ServletResourceStore;
+import jakarta.servlet.ServletContextEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link ServletResourceStore#WATCH_INIT_PARAM}.
+ */
+public class WatchedStoreTest {
+
+  private static final int MAX_MISSING = 10;
+
+  private LocalServletContext localContext;
+  private ServletResourceStore store;
+
+  @Before
+  public void setUp() throws IOException {
+    localContext = LocalServletContext.create(1, 1, 16);
+    localContext.setInitParameter(ServletResourceStore.WATCH_INIT_PARAM, "true");
+    localContext.setInitParameter(ServletResourceStore.NEGATIVE_CACHE_MAX_ENTRIES_INIT_PARAM, Integer.toString(MAX_MISSING));
+    store = ServletResourceStore.getInstance(localContext.getServletContext(), Path.ROOT, true);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    new ServletResourceStore.Initializer().contextDestroyed(new ServletContextEvent(localContext.getServletContext()));
+    localContext.close();
+  }
+
+  private boolean exists(String path) throws IOException, ValidationException {
+    try (ServletResourceConnection conn = store.getResource(Path.valueOf(path)).open()) {
+      return conn.exists();
+    }
+  }
+
+  @Test
+  public void testJarResourceLookupsCached() throws IOException, ValidationException {
+    for (int i = 0; i < 100; i++) {
+      assertTrue(exists("/jar/entry-0.bin"));
+    }
+    assertEquals(
+        "Resources not in the watched directory must continue to use ServletContextCache",
+        1,
+        localContext.getResourceLookups("/jar/entry-0.bin")
+    );
+  }
+
+  @Test
+  public void testDeletedFileMissing() throws IOException, ValidationException, InterruptedException {
+    assertTrue(exists("/files/file-0.bin"));
+    Files.delete(localContext.getDocBase().resolve("files/file-0.bin"));
+    // Well within ServletContextCache.REFRESH_INTERVAL
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (exists("/files/file-0.bin")) {
+      assertTrue("Deleted file still exists", System.nanoTime() < deadline);
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+    assertFalse(exists("/files/file-0.bin"));
+  }
+
+  @Test
+  public void testCreatedFileAfterManyMissing() throws IOException, ValidationException, InterruptedException {
+    for (int i = 0; i < MAX_MISSING * 10; i++) {
+      assertFalse(exists("/files/missing-" + i + ".bin"));
+    }
+    String created = "/files/missing-" + (MAX_MISSING * 10 - 1) + ".bin";
+    Files.write(localContext.getDocBase().resolve(created.substring(1)), new byte[16]);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (!exists(created)) {
+      assertTrue("Created file still missing", System.nanoTime() < deadline);
+      TimeUnit.MILLISECONDS.sleep(10);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches lookups for a time that adapts to how often each path is observed to change.  Each time a path is looked-up
+ * directly and found unchanged, the time it is cached doubles, up to the maximum staleness.  When found changed, it is
+ * looked-up directly again on its next use, so paths being edited remain fresh while stable paths, such as the
+ * content of JAR files, are rarely looked-up.
+ */
+final class AdaptiveFreshness {
+
+  /**
+   * The time a path is first cached after being found unchanged.
+   */
+  private static final long MIN_TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * How often the last use of a path is updated, so repeated hits do not write to the snapshot.
+   */
+  private static final long USED_RESOLUTION_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /**
+   * The fraction of the paths forgotten at a time once full, so the cost of finding the least recently used is
+   * shared by many new paths.
+   */
+  private static final int EVICT_DIVISOR = 10;
+
+  /**
+   * The result of a direct lookup.
+   */
+  static final class Snapshot {
+
+    /**
+     * The local file or {@code null} when not a local file.
+     */
+    final File file;
+    final BasicFileAttributes attrs;
+
+    /**
+     * The URL when not a local file, or {@code null} when not found or is a local file.
+     */
+    final URL url;
+
+    private final long checkedNanos;
+    private final long ttlNanos;
+
+    /**
+     * The {@link System#nanoTime()} last used, within {@link #USED_RESOLUTION_NANOS}.
+     */
+    private volatile long usedNanos;
+
+    private Snapshot(File file, BasicFileAttributes attrs, URL url, long checkedNanos, long ttlNanos) {
+      this.file = file;
+      this.attrs = attrs;
+      this.url = url;
+      this.checkedNanos = checkedNanos;
+      this.ttlNanos = ttlNanos;
+      this.usedNanos = checkedNanos;
+    }
+
+    private boolean isSame(File file, BasicFileAttributes attrs, URL url) {
+      if (this.file == null) {
+        return
+            file == null
+                && ((this.url == null) ? (url == null) : (url != null && this.url.toString().equals(url.toString())));
+      } else {
+        return
+            file != null
+                && this.file.equals(file)
+                && this.attrs.size() == attrs.size()
+                && this.attrs.lastModifiedTime().equals(attrs.lastModifiedTime());
+      }
+    }
+  }
+
+  private final long maxTtlNanos;
+  private final int maxEntries;
+  private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+  private final Object evictLock = new Object();
+
+  AdaptiveFreshness(long maxStalenessMillis, int maxEntries) {
+    this.maxTtlNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Gets the cached lookup of the given servlet path.
+   *
+   * @return  the snapshot or {@code null} when the path must be looked-up directly
+   */
+  Snapshot get(String servletPath) {
+    Snapshot snapshot = snapshots.get(servletPath);
+    if (snapshot != null) {
+      long now = System.nanoTime();
+      if (now - snapshot.usedNanos >= USED_RESOLUTION_NANOS) {
+        snapshot.usedNanos = now;
+      }
+      if (now - snapshot.checkedNanos < snapshot.ttlNanos) {
+        return snapshot;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets how much longer the cached lookup of the given servlet path will be used.
+   *
+   * @return  the remaining time in nanoseconds or {@code 0} when the path will be looked-up directly
+   */
+  long getRemainingNanos(String servletPath) {
+    Snapshot snapshot = snapshots.get(servletPath);
+    if (snapshot == null) {
+      return 0;
+    }
+    return Math.max(0, snapshot.ttlNanos - (System.nanoTime() - snapshot.checkedNanos));
+  }
+
+  /**
+   * Records the result of a direct lookup, adapting the time it is cached.
+   *
+   * @param  file   The local file or {@code null} when not a local file
+   * @param  attrs  The attributes of the file or {@code null} when not a local file
+   * @param  url    The URL when not a local file, or {@code null} when not found or is a local file
+   */
+  Snapshot put(String servletPath, File file, BasicFileAttributes attrs, URL url) {
+    Snapshot previous = snapshots.get(servletPath);
+    long ttlNanos;
+    if (previous == null) {
+      ttlNanos = 0;
+    } else if (previous.isSame(file, attrs, url)) {
+      ttlNanos = Math.min(maxTtlNanos, Math.max(MIN_TTL_NANOS, previous.ttlNanos * 2));
+    } else {
+      // Changed, look-up directly until found unchanged
+      ttlNanos = 0;
+    }
+    Snapshot snapshot = new Snapshot(file, attrs, url, System.nanoTime(), ttlNanos);
+    if (previous == null && snapshots.size() >= maxEntries) {
+      evict();
+    }
+    snapshots.put(servletPath, snapshot);
+    return snapshot;
+  }
+
+  /**
+   * Forgets the least recently used paths, a fraction at a time.
+   */
+  private void evict() {
+    synchronized (evictLock) {
+      // Another thread may have already evicted
+      if (snapshots.size() >= maxEntries) {
+        long now = System.nanoTime();
+        long[] ages = snapshots.values().stream().mapToLong(snapshot -> now - snapshot.usedNanos).sorted().toArray();
+        if (ages.length != 0) {
+          long minAge = ages[Math.max(0, ages.length - Math.max(1, maxEntries / EVICT_DIVISOR))];
+          snapshots.values().removeIf(snapshot -> now - snapshot.usedNanos >= minAge);
+        }
+      }
+    }
+  }
+
+  /**
+   * Forgets the given servlet path and all paths beneath it, or all paths when {@code null}.
+   */
+  void invalidate(String servletPath) {
+    if (servletPath == null) {
+      snapshots.clear();
+    } else {
+      snapshots.remove(servletPath);
+      String dir = servletPath.endsWith("/") ? servletPath : (servletPath + '/');
+      snapshots.keySet().removeIf(key -> key.startsWith(dir));
+    }
+  }
+}
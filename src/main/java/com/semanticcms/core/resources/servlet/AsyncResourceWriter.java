@@ -0,0 +1,136 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes a resource to a response with Servlet non-blocking I/O, writing only while
+ * {@link ServletOutputStream#isReady()} so no thread waits on a slow client.
+ *
+ * @see  ServletResourceConnection#writeAsync(jakarta.servlet.ServletOutputStream)
+ */
+final class AsyncResourceWriter implements WriteListener {
+
+  private static final Logger logger = Logger.getLogger(AsyncResourceWriter.class.getName());
+
+  private final ServletResourceConnection conn;
+  private final ReadableByteChannel src;
+  private final ServletOutputStream out;
+  private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+  /**
+   * The buffer, which is written directly since the Servlet API only writes arrays.
+   */
+  private final byte[] buff = new byte[DirectBufferPool.BUFFER_SIZE];
+  private final ByteBuffer buffer = ByteBuffer.wrap(buff);
+
+  /**
+   * Guards against overlapping callbacks.  This is a {@link Lock} instead of <code>synchronized</code> so a virtual
+   * thread reading the resource does not pin its carrier thread.
+   */
+  private final Lock lock = new ReentrantLock();
+
+  private long total;
+  private boolean done;
+
+  AsyncResourceWriter(ServletResourceConnection conn, ReadableByteChannel src, ServletOutputStream out) {
+    this.conn = conn;
+    this.src = src;
+    this.out = out;
+  }
+
+  CompletableFuture<Long> getFuture() {
+    return future;
+  }
+
+  /**
+   * Called by the container each time the output may be written.
+   * Fills and writes the buffer until the output would block or the resource is fully written.
+   */
+  @Override
+  public void onWritePossible() throws IOException {
+    lock.lock();
+    try {
+      while (!done && out.isReady()) {
+        int count = src.read(buffer);
+        if (count == -1) {
+          finish(null);
+          return;
+        }
+        if (count > 0) {
+          out.write(buff, 0, count);
+          total += count;
+        }
+        buffer.clear();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    lock.lock();
+    try {
+      finish(t);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Closes the connection and completes the future.
+   *
+   * @param  t  the cause of failure or {@code null} when successful
+   */
+  private void finish(Throwable t) {
+    if (!done) {
+      done = true;
+      try {
+        conn.close();
+      } catch (IOException e) {
+        if (t == null) {
+          t = e;
+        } else {
+          logger.log(Level.WARNING, null, e);
+        }
+      }
+      if (t == null) {
+        future.complete(total);
+      } else {
+        future.completeExceptionally(t);
+      }
+    }
+  }
+}
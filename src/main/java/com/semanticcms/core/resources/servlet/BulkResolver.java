@@ -0,0 +1,192 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.resources.servlet;
+
+import com.aoapps.net.Path;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the attributes of many resources concurrently, with at most a fixed number of lookups in progress per
+ * store.
+ *
+ * <p>When the Java runtime supports virtual threads, each lookup runs on its own virtual thread and concurrency is
+ * bounded by a semaphore.  Otherwise, lookups run on a bounded pool of daemon platform threads.</p>
+ */
+final class BulkResolver {
+
+  private static final Logger logger = Logger.getLogger(BulkResolver.class.getName());
+
+  private final ServletResourceStore store;
+  private final int maxConcurrency;
+
+  /**
+   * Limits concurrent lookups when running on virtual threads, {@code null} for the platform thread pool.
+   */
+  private final Semaphore permits;
+
+  private final Object executorLock = new Object();
+  private ExecutorService executor;
+  private boolean closed;
+
+  BulkResolver(ServletResourceStore store, int maxConcurrency) {
+    this.store = store;
+    this.maxConcurrency = maxConcurrency;
+    this.permits = supportsVirtualThreads() ? new Semaphore(maxConcurrency) : null;
+  }
+
+  /**
+   * Checks for {@code Executors.newVirtualThreadPerTaskExecutor()}, added in Java 21.
+   */
+  private static boolean supportsVirtualThreads() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private ExecutorService getExecutor() {
+    synchronized (executorLock) {
+      if (closed) {
+        throw new IllegalStateException("Store destroyed: " + store);
+      }
+      if (executor == null) {
+        if (permits != null) {
+          try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+          } catch (ReflectiveOperationException e) {
+            logger.log(Level.WARNING, "Virtual threads unavailable, using platform threads", e);
+          }
+        }
+        if (executor == null) {
+          AtomicInteger threadNum = new AtomicInteger();
+          ThreadPoolExecutor pool = new ThreadPoolExecutor(
+              maxConcurrency,
+              maxConcurrency,
+              60,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              r -> {
+                Thread thread = new Thread(r, BulkResolver.class.getName() + "-" + threadNum.incrementAndGet() + ": " + store);
+                thread.setDaemon(true);
+                return thread;
+              }
+          );
+          pool.allowCoreThreadTimeOut(true);
+          executor = pool;
+        }
+      }
+      return executor;
+    }
+  }
+
+  /**
+   * Resolves the attributes of all the given paths, as by {@link ServletResourceStore#stat(com.aoapps.net.Path)}.
+   *
+   * @return  the attributes in the order lookups completed, with a {@code null} value for each resource that does not
+   *          exist
+   */
+  Map<Path, ServletResourceAttributes> stat(Collection<? extends Path> paths) throws IOException {
+    Map<Path, ServletResourceAttributes> results = new LinkedHashMap<>(paths.size() * 4 / 3 + 1);
+    if (paths.isEmpty()) {
+      return results;
+    }
+    ExecutorService exec = getExecutor();
+    ExecutorCompletionService<Map.Entry<Path, ServletResourceAttributes>> completion = new ExecutorCompletionService<>(exec);
+    List<Future<Map.Entry<Path, ServletResourceAttributes>>> futures = new ArrayList<>(paths.size());
+    try {
+      for (Path path : paths) {
+        futures.add(completion.submit(() -> {
+          if (permits != null) {
+            permits.acquire();
+          }
+          try {
+            return new AbstractMap.SimpleImmutableEntry<>(path, store.stat(path));
+          } finally {
+            if (permits != null) {
+              permits.release();
+            }
+          }
+        }));
+      }
+      for (int i = futures.size(); i > 0; i--) {
+        Map.Entry<Path, ServletResourceAttributes> result = completion.take().get();
+        results.put(result.getKey(), result.getValue());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+      InterruptedIOException ioErr = new InterruptedIOException();
+      ioErr.initCause(e);
+      throw ioErr;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    } finally {
+      // Stop any remaining lookups on failure
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  void close() {
+    synchronized (executorLock) {
+      closed = true;
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+    }
+  }
+}
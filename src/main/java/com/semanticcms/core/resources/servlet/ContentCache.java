@@ -0,0 +1,128 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the content of small resources in memory, in direct buffers outside of the Java heap so a large cache does not
+ * add to garbage collection work.  Each buffer is identified by the servlet path along with the last modified time
+ * and length of the resource, and only the most recently cached version of each path is kept.
+ *
+ * <p>The least recently used content is evicted once the total size exceeds the configured budget.  Evicted buffers
+ * are freed once no longer referenced by any connection.</p>
+ */
+final class ContentCache {
+
+  private final long maxBytes;
+  private final int maxLength;
+
+  private final Object lock = new Object();
+
+  /**
+   * Access-ordered for LRU eviction.
+   */
+  private final Map<MaterializedFileCache.Key, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * The key of the cached version of each path.
+   */
+  private final Map<String, MaterializedFileCache.Key> versions = new HashMap<>();
+
+  private long totalBytes;
+
+  /**
+   * @param  maxBytes   The total size of all cached content.
+   * @param  maxLength  The maximum length of a resource to cache.
+   */
+  ContentCache(long maxBytes, int maxLength) {
+    this.maxBytes = maxBytes;
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * Checks if a resource of the given length may be cached.
+   */
+  boolean isCacheable(long length) {
+    return length >= 0 && length <= maxLength && length <= maxBytes;
+  }
+
+  /**
+   * Gets the cached content of the given version of a resource.
+   *
+   * @return  a read-only buffer positioned at the start of the content, independent of any other caller,
+   *          or {@code null} when not cached
+   */
+  ByteBuffer get(MaterializedFileCache.Key key) {
+    ByteBuffer content;
+    synchronized (lock) {
+      content = entries.get(key);
+    }
+    return (content == null) ? null : content.duplicate();
+  }
+
+  /**
+   * Caches the content of the given version of a resource, replacing any other version of the same path.
+   *
+   * @param  content  A read-only buffer of the entire content, which must not be modified.
+   */
+  void put(MaterializedFileCache.Key key, ByteBuffer content) {
+    assert content.isReadOnly();
+    int size = content.remaining();
+    synchronized (lock) {
+      MaterializedFileCache.Key previousKey = versions.put(key.servletPath, key);
+      if (previousKey != null) {
+        ByteBuffer previous = entries.remove(previousKey);
+        if (previous != null) {
+          totalBytes -= previous.remaining();
+        }
+      }
+      entries.put(key, content);
+      totalBytes += size;
+      Iterator<Map.Entry<MaterializedFileCache.Key, ByteBuffer>> iter = entries.entrySet().iterator();
+      while (totalBytes > maxBytes && iter.hasNext()) {
+        Map.Entry<MaterializedFileCache.Key, ByteBuffer> entry = iter.next();
+        MaterializedFileCache.Key evictedKey = entry.getKey();
+        iter.remove();
+        versions.remove(evictedKey.servletPath, evictedKey);
+        totalBytes -= entry.getValue().remaining();
+      }
+    }
+  }
+
+  /**
+   * Discards all cached content.
+   */
+  void clear() {
+    synchronized (lock) {
+      entries.clear();
+      versions.clear();
+      totalBytes = 0;
+    }
+  }
+}
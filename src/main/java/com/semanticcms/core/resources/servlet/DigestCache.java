@@ -0,0 +1,226 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the content digest of the current version of each resource, computed in the background on a bounded
+ * executor.  Only one version is kept per servlet path, so a modified resource replaces its previous digest.
+ */
+final class DigestCache {
+
+  private static final Logger logger = Logger.getLogger(DigestCache.class.getName());
+
+  /**
+   * The digest algorithm, which is also the strong entity tag.
+   */
+  static final String ALGORITHM = "SHA-256";
+
+  /**
+   * The number of digest computations that may wait for a thread.  Requests beyond this are dropped and will be
+   * requested again on a later connection.
+   */
+  private static final int QUEUE_SIZE = 1000;
+
+  private static final class Entry {
+
+    private final long lastModified;
+    private final long length;
+    private final String digest;
+
+    private Entry(long lastModified, long length, String digest) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.digest = digest;
+    }
+  }
+
+  private final ServletResourceStore store;
+  private final int maxEntries;
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  private final Object executorLock = new Object();
+  private ThreadPoolExecutor executor;
+  private boolean closed;
+
+  DigestCache(ServletResourceStore store, int maxEntries) {
+    this.store = store;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Gets the digest for the given version of a resource.
+   * When not yet known, a background computation is requested and {@code null} is returned.
+   *
+   * @return  The base64url-encoded digest or {@code null} when not yet computed.
+   */
+  String getDigest(ServletResource resource, long lastModified, long length) {
+    String servletPath = resource.servletPath;
+    Entry entry = entries.get(servletPath);
+    if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+      return entry.digest;
+    }
+    PersistentCache persistentCache = store.persistentCache;
+    if (persistentCache != null) {
+      String persisted = persistentCache.getDigest(servletPath, lastModified, length);
+      if (persisted != null) {
+        put(servletPath, lastModified, length, persisted);
+        return persisted;
+      }
+    }
+    if (pending.add(servletPath)) {
+      boolean submitted = false;
+      try {
+        ThreadPoolExecutor exec = getExecutor();
+        if (exec != null) {
+          exec.execute(() -> {
+            try {
+              compute(resource);
+            } finally {
+              pending.remove(servletPath);
+            }
+          });
+          submitted = true;
+        }
+      } catch (RejectedExecutionException e) {
+        // Queue full or shutting down, requested again on a later connection
+      } finally {
+        if (!submitted) {
+          pending.remove(servletPath);
+        }
+      }
+    }
+    return null;
+  }
+
+  private ThreadPoolExecutor getExecutor() {
+    synchronized (executorLock) {
+      if (closed) {
+        return null;
+      }
+      if (executor == null) {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+        AtomicInteger threadNum = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(QUEUE_SIZE),
+            r -> {
+              Thread thread = new Thread(r, DigestCache.class.getName() + "-" + threadNum.incrementAndGet() + ": " + store);
+              thread.setDaemon(true);
+              thread.setPriority(Thread.MIN_PRIORITY);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+      }
+      return executor;
+    }
+  }
+
+  /**
+   * Reads the content of the resource, recording its digest for the version read.
+   */
+  private void compute(ServletResource resource) {
+    try (ServletResourceConnection conn = resource.open()) {
+      if (!conn.exists()) {
+        entries.remove(resource.servletPath);
+        return;
+      }
+      long lastModified = conn.getLastModified();
+      long length = conn.getLength();
+      MessageDigest md = MessageDigest.getInstance(ALGORITHM);
+      long total = 0;
+      byte[] buff = new byte[DirectBufferPool.BUFFER_SIZE];
+      try (InputStream in = conn.getInputStream()) {
+        int count;
+        while ((count = in.read(buff)) != -1) {
+          md.update(buff, 0, count);
+          total += count;
+        }
+      }
+      // Discard when modified while reading
+      if (length == -1 || total == length) {
+        String digest = Base64.getUrlEncoder().withoutPadding().encodeToString(md.digest());
+        put(resource.servletPath, lastModified, total, digest);
+        PersistentCache persistentCache = store.persistentCache;
+        if (persistentCache != null) {
+          persistentCache.putDigest(resource.servletPath, lastModified, total, digest);
+        }
+      }
+    } catch (IOException e) {
+      logger.log(Level.FINE, "Unable to compute digest: " + resource, e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(ALGORITHM + " is required by the Java platform", e);
+    }
+  }
+
+  /**
+   * Records the digest for the given version of a resource.
+   * When full, arbitrary entries are removed to make room.
+   */
+  void put(String servletPath, long lastModified, long length, String digest) {
+    if (entries.size() >= maxEntries) {
+      Iterator<String> iter = entries.keySet().iterator();
+      while (entries.size() >= maxEntries && iter.hasNext()) {
+        iter.next();
+        iter.remove();
+      }
+    }
+    entries.put(servletPath, new Entry(lastModified, length, digest));
+  }
+
+  /**
+   * Stops computing digests.
+   */
+  void close() {
+    synchronized (executorLock) {
+      closed = true;
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small pool of direct buffers used when copying content that is not available as a local file.
+ * Direct buffers are expensive to allocate and are only reclaimed by the garbage collector
+ * indirectly, so they are reused instead of being allocated per request.
+ */
+final class DirectBufferPool {
+
+  /** Make no instances. */
+  private DirectBufferPool() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The size of each buffer.
+   */
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * The maximum number of idle buffers retained.  Buffers beyond this are left to the garbage collector.
+   */
+  private static final int MAX_IDLE = 64;
+
+  private static final Queue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+
+  private static final AtomicInteger idleCount = new AtomicInteger();
+
+  /**
+   * Gets a cleared buffer from the pool, allocating a new one when none are idle.
+   */
+  static ByteBuffer acquire() {
+    ByteBuffer buffer = idle.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+    idleCount.decrementAndGet();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool.  The buffer must not be used by the caller after release.
+   */
+  static void release(ByteBuffer buffer) {
+    if (idleCount.incrementAndGet() <= MAX_IDLE) {
+      buffer.clear();
+      idle.add(buffer);
+    } else {
+      idleCount.decrementAndGet();
+    }
+  }
+}
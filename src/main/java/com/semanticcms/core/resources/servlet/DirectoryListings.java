@@ -0,0 +1,130 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.resources.servlet;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the contents of directories listed by
+ * {@link jakarta.servlet.ServletContext#getResourcePaths(java.lang.String)}, each for as long as the store would
+ * reuse a lookup of the directory.
+ *
+ * <p>Listings are keyed by their path relative to the store, always ending in a slash.</p>
+ */
+final class DirectoryListings {
+
+  /**
+   * The number of directories remembered before arbitrary directories are forgotten.
+   */
+  private static final int MAX_ENTRIES = 1000;
+
+  private static final class Listing {
+
+    private final String[] servletPaths;
+    private final long listedNanos;
+    private final long ttlNanos;
+
+    private Listing(String[] servletPaths, long listedNanos, long ttlNanos) {
+      this.servletPaths = servletPaths;
+      this.listedNanos = listedNanos;
+      this.ttlNanos = ttlNanos;
+    }
+  }
+
+  private final ConcurrentMap<String, Listing> listings = new ConcurrentHashMap<>();
+
+  /**
+   * Incremented on every invalidation, so listings read concurrently with a change are not remembered.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Gets the current generation, to be passed to {@link #put(java.lang.String, java.lang.String[], long, long)}.
+   */
+  long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Gets the remembered listing of a directory.
+   *
+   * @return  the sorted servlet paths, shared and not to be modified, or {@code null} when must be listed again
+   */
+  String[] get(String dir) {
+    Listing listing = listings.get(dir);
+    if (listing != null) {
+      if (listing.ttlNanos == Long.MAX_VALUE || System.nanoTime() - listing.listedNanos < listing.ttlNanos) {
+        return listing.servletPaths;
+      }
+      listings.remove(dir, listing);
+    }
+    return null;
+  }
+
+  /**
+   * Remembers the listing of a directory, unless invalidated since the given generation.
+   */
+  void put(String dir, String[] servletPaths, long ttlNanos, long startGeneration) {
+    if (ttlNanos <= 0) {
+      return;
+    }
+    if (listings.size() >= MAX_ENTRIES) {
+      // Make room by removing arbitrary entries
+      Iterator<String> iter = listings.keySet().iterator();
+      while (listings.size() >= MAX_ENTRIES && iter.hasNext()) {
+        iter.next();
+        iter.remove();
+      }
+    }
+    listings.put(dir, new Listing(servletPaths, System.nanoTime(), ttlNanos));
+    // Discard when invalidated while listing
+    if (generation.get() != startGeneration) {
+      listings.remove(dir);
+    }
+  }
+
+  /**
+   * Forgets the listings that may include the given path: its parent directory, itself, and any directory beneath
+   * it, or all listings when {@code null}.
+   */
+  void invalidate(String relativePath) {
+    generation.incrementAndGet();
+    if (relativePath == null) {
+      listings.clear();
+    } else {
+      String dir = relativePath.endsWith("/") ? relativePath : (relativePath + '/');
+      listings.keySet().removeIf(key -> key.startsWith(dir));
+      if (dir.length() > 1) {
+        int slashPos = dir.lastIndexOf('/', dir.length() - 2);
+        listings.remove(dir.substring(0, slashPos + 1));
+      }
+    }
+  }
+
+  void clear() {
+    listings.clear();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.resources.servlet;
+
+import com.aoapps.lang.validation.ValidationException;
+import com.aoapps.net.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Walks a directory tree of a store depth-first, one directory at a time.  Only the listing of the current directory
+ * and the directories not yet visited are held, so memory use does not grow with the number of files.
+ *
+ * <p>Directories are visited in sorted order, and each iteration returns the files directly within one directory.
+ * <code>/WEB-INF/</code> and <code>/META-INF/</code> are never visited, since they are never served.</p>
+ */
+final class DirectoryWalker implements Iterator<List<Path>> {
+
+  private static final Logger logger = Logger.getLogger(DirectoryWalker.class.getName());
+
+  private final ServletResourceStore store;
+
+  /**
+   * The directories not yet visited, as servlet paths ending in a slash.
+   */
+  private final Deque<String> pending = new ArrayDeque<>();
+
+  private List<Path> next;
+
+  /**
+   * @param  dir  The servlet path of the directory to walk, ending in a slash.
+   */
+  DirectoryWalker(ServletResourceStore store, String dir) {
+    this.store = store;
+    pending.push(dir);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (next == null && !pending.isEmpty()) {
+      String dir = pending.pop();
+      String[] servletPaths = store.listDirectory(dir);
+      List<Path> files = new ArrayList<>();
+      // Reverse order so sub-directories are popped in sorted order
+      for (int i = servletPaths.length - 1; i >= 0; i--) {
+        String servletPath = servletPaths[i];
+        if (!servletPath.startsWith(dir)) {
+          continue;
+        }
+        if (servletPath.endsWith("/")) {
+          if (!ServletResource.isProtectedPath(servletPath)) {
+            pending.push(servletPath);
+          }
+        } else {
+          try {
+            files.add(Path.valueOf(servletPath.substring(store.prefix.length())));
+          } catch (ValidationException e) {
+            logger.log(Level.FINE, "Skipping invalid path: " + servletPath, e);
+          }
+        }
+      }
+      if (!files.isEmpty()) {
+        // Restore sorted order
+        Collections.reverse(files);
+        next = files;
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public List<Path> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    List<Path> files = next;
+    next = null;
+    return files;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a {@linkplain MaterializedFileCache materialized file}, following the copy while it is still being written.
+ * Reads block only when caught up with the copy.  The entry is released when the stream is closed.
+ */
+final class GrowingFileInputStream extends InputStream {
+
+  private final MaterializedFileCache cache;
+  private final MaterializedFileCache.Entry entry;
+  private final FileChannel channel;
+  private long position;
+  private boolean closed;
+
+  GrowingFileInputStream(MaterializedFileCache cache, MaterializedFileCache.Entry entry) throws IOException {
+    this.cache = cache;
+    this.entry = entry;
+    this.channel = FileChannel.open(entry.getFile().toPath(), StandardOpenOption.READ);
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] buff = new byte[1];
+    return (read(buff, 0, 1) == -1) ? -1 : (buff[0] & 0xff);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!entry.awaitWritten(position)) {
+      return -1;
+    }
+    long available = entry.getWritten() - position;
+    if (len > available) {
+      len = (int) available;
+    }
+    int count = channel.read(ByteBuffer.wrap(b, off, len), position);
+    if (count > 0) {
+      position += count;
+    }
+    return count;
+  }
+
+  @Override
+  public int available() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    return (int) Math.min(Integer.MAX_VALUE, entry.getWritten() - position);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      try {
+        channel.close();
+      } finally {
+        cache.release(entry);
+      }
+    }
+  }
+}
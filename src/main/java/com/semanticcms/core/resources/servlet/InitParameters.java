@@ -0,0 +1,130 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import jakarta.servlet.ServletContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses the optional context init parameters used to configure {@link ServletResourceStore}.
+ */
+final class InitParameters {
+
+  /** Make no instances. */
+  private InitParameters() {
+    throw new AssertionError();
+  }
+
+  private static String getTrimmed(ServletContext servletContext, String name) {
+    String value = servletContext.getInitParameter(name);
+    if (value != null) {
+      value = value.trim();
+      if (value.isEmpty()) {
+        value = null;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Gets a <code>long</code> init parameter.
+   *
+   * @return  The parsed value or {@code defaultValue} when not set.
+   *
+   * @throws  IllegalArgumentException  when the value is not a number or is negative
+   */
+  static long getLong(ServletContext servletContext, String name, long defaultValue) throws IllegalArgumentException {
+    String value = getTrimmed(servletContext, name);
+    if (value == null) {
+      return defaultValue;
+    }
+    long parsed;
+    try {
+      parsed = Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid context init parameter: " + name + "=" + value, e);
+    }
+    if (parsed < 0) {
+      throw new IllegalArgumentException("Negative context init parameter: " + name + "=" + value);
+    }
+    return parsed;
+  }
+
+  /**
+   * Gets an <code>int</code> init parameter.
+   *
+   * @return  The parsed value or {@code defaultValue} when not set.
+   *
+   * @throws  IllegalArgumentException  when the value is not a number, is negative, or is out of range
+   */
+  static int getInt(ServletContext servletContext, String name, int defaultValue) throws IllegalArgumentException {
+    long value = getLong(servletContext, name, defaultValue);
+    if (value > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Context init parameter out of range: " + name + "=" + value);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Gets a <code>boolean</code> init parameter.
+   *
+   * @return  The parsed value or {@code defaultValue} when not set.
+   *
+   * @throws  IllegalArgumentException  when the value is neither "true" nor "false"
+   */
+  static boolean getBoolean(ServletContext servletContext, String name, boolean defaultValue) throws IllegalArgumentException {
+    String value = getTrimmed(servletContext, name);
+    if (value == null) {
+      return defaultValue;
+    }
+    if ("true".equalsIgnoreCase(value)) {
+      return true;
+    }
+    if ("false".equalsIgnoreCase(value)) {
+      return false;
+    }
+    throw new IllegalArgumentException("Invalid context init parameter: " + name + "=" + value);
+  }
+
+  /**
+   * Gets a list init parameter, with elements separated by commas and/or whitespace.
+   *
+   * @return  The elements or an empty list when not set.
+   */
+  static List<String> getList(ServletContext servletContext, String name) {
+    String value = getTrimmed(servletContext, name);
+    if (value == null) {
+      return Collections.emptyList();
+    }
+    List<String> list = new ArrayList<>();
+    for (String element : value.split("[\\s,]+")) {
+      if (!element.isEmpty()) {
+        list.add(element);
+      }
+    }
+    return list;
+  }
+}
@@ -0,0 +1,406 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+
+/**
+ * Resolves <code>jar:file:</code> URLs, such as those of <code>META-INF/resources</code> in
+ * <code>WEB-INF/lib</code>, directly against a shared {@link JarFile} per JAR.  This avoids the
+ * {@link java.net.JarURLConnection} opened per access, which must open the entry just to read its length and last
+ * modified time.
+ *
+ * <p>Entries stored without compression are read as slices of the JAR itself, by positional reads on a channel shared
+ * by all connections.</p>
+ *
+ * <p>A single instance is shared by all stores of an application, so each JAR is opened and indexed only once, and
+ * is closed when the application is destroyed.</p>
+ *
+ * <p>JARs are assumed to not change while open, which holds for <code>WEB-INF/lib</code> until the application is
+ * redeployed.</p>
+ */
+final class JarResources {
+
+  private static final Logger logger = Logger.getLogger(JarResources.class.getName());
+
+  private static final String JAR_SEPARATOR = "!/";
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int END_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xffff;
+  private static final long ZIP64_MAGIC = 0xffffffffL;
+
+  /**
+   * A resolved entry within a JAR.
+   */
+  static final class Entry {
+
+    final Jar jar;
+    final JarEntry jarEntry;
+    final UrlMetadata metadata;
+
+    /**
+     * The position of the content within the JAR or {@code -1} when compressed or unknown.
+     */
+    final long dataOffset;
+
+    private Entry(Jar jar, JarEntry jarEntry, long dataOffset) {
+      this.jar = jar;
+      this.jarEntry = jarEntry;
+      this.metadata = new UrlMetadata(jar.lastModified, jarEntry.getSize());
+      this.dataOffset = dataOffset;
+    }
+
+    /**
+     * Checks if the content may be read as a slice of {@link Jar#getChannel()}.
+     */
+    boolean isSliceable() {
+      return dataOffset != -1;
+    }
+
+    /**
+     * Opens the content of this entry.
+     */
+    InputStream openStream() throws IOException {
+      if (dataOffset != -1) {
+        return new PositionalInputStream(jar.getChannel(), dataOffset, metadata.length);
+      } else {
+        return jar.jarFile.getInputStream(jarEntry);
+      }
+    }
+  }
+
+  /**
+   * A JAR opened once and shared by all resources within it.
+   */
+  static final class Jar {
+
+    private final File file;
+    private final JarFile jarFile;
+
+    /**
+     * The last modified time of the JAR file, which is also the last modified time of all its entries when accessed
+     * by <code>jar:</code> URL.
+     */
+    private final long lastModified;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    private FileChannel channel;
+    private Map<String, Long> localHeaderOffsets;
+    private boolean closed;
+
+    private Jar(File file) throws IOException {
+      this.file = file;
+      // Truncated to seconds, as the JAR URL reports it through a Last-Modified header
+      this.lastModified = file.lastModified() / 1000 * 1000;
+      this.jarFile = new JarFile(file, false);
+    }
+
+    /**
+     * Gets the channel used for positional reads of stored entries, opening on first use.
+     */
+    FileChannel getChannel() throws IOException {
+      synchronized (lock) {
+        if (closed) {
+          throw new IOException("JAR closed: " + file);
+        }
+        if (channel == null) {
+          channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+        return channel;
+      }
+    }
+
+    /**
+     * Gets the entry of the given name.
+     *
+     * @return  the entry or {@code null} when not found
+     */
+    private Entry getEntry(String name) throws IOException {
+      Entry entry = entries.get(name);
+      if (entry == null) {
+        JarEntry jarEntry = jarFile.getJarEntry(name);
+        if (jarEntry == null || jarEntry.isDirectory()) {
+          return null;
+        }
+        long dataOffset = -1;
+        if (
+            jarEntry.getMethod() == ZipEntry.STORED
+                && jarEntry.getSize() != -1
+                && jarEntry.getSize() == jarEntry.getCompressedSize()
+        ) {
+          dataOffset = getDataOffset(name);
+        }
+        Entry newEntry = new Entry(this, jarEntry, dataOffset);
+        entry = entries.putIfAbsent(name, newEntry);
+        if (entry == null) {
+          entry = newEntry;
+        }
+      }
+      return entry;
+    }
+
+    /**
+     * Finds the position of the content of a stored entry.
+     *
+     * @return  the position or {@code -1} when unable to find
+     */
+    private long getDataOffset(String name) throws IOException {
+      Long localHeaderOffset;
+      FileChannel ch;
+      synchronized (lock) {
+        ch = getChannel();
+        if (localHeaderOffsets == null) {
+          localHeaderOffsets = readLocalHeaderOffsets(ch);
+        }
+        localHeaderOffset = localHeaderOffsets.get(name);
+      }
+      if (localHeaderOffset == null) {
+        return -1;
+      }
+      ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      if (!readFully(ch, header, localHeaderOffset) || header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+        return -1;
+      }
+      int nameLength = header.getShort(26) & 0xffff;
+      int extraLength = header.getShort(28) & 0xffff;
+      return localHeaderOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    private void close() throws IOException {
+      synchronized (lock) {
+        closed = true;
+        try {
+          if (channel != null) {
+            channel.close();
+          }
+        } finally {
+          jarFile.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the local header offsets of all stored entries from the central directory.
+   * ZIP64 archives, where the central directory may not fit these fields, are not read.
+   */
+  private static Map<String, Long> readLocalHeaderOffsets(FileChannel channel) throws IOException {
+    long size = channel.size();
+    int tailSize = (int) Math.min(size, END_SIZE + MAX_COMMENT_SIZE);
+    ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+    if (!readFully(channel, tail, size - tailSize)) {
+      return Collections.emptyMap();
+    }
+    int endPos = -1;
+    for (int pos = tailSize - END_SIZE; pos >= 0; pos--) {
+      if (tail.getInt(pos) == END_SIGNATURE) {
+        endPos = pos;
+        break;
+      }
+    }
+    if (endPos == -1) {
+      return Collections.emptyMap();
+    }
+    long centralSize = tail.getInt(endPos + 12) & ZIP64_MAGIC;
+    long centralOffset = tail.getInt(endPos + 16) & ZIP64_MAGIC;
+    if (
+        centralSize == ZIP64_MAGIC
+            || centralOffset == ZIP64_MAGIC
+            || centralSize > Integer.MAX_VALUE
+            || centralOffset + centralSize > size
+    ) {
+      return Collections.emptyMap();
+    }
+    // Any data prepended to the archive, such as a self-extracting stub, shifts all offsets
+    long shift = (size - tailSize + endPos) - (centralOffset + centralSize);
+    ByteBuffer central = ByteBuffer.allocate((int) centralSize).order(ByteOrder.LITTLE_ENDIAN);
+    if (!readFully(channel, central, centralOffset + shift)) {
+      return Collections.emptyMap();
+    }
+    Map<String, Long> offsets = new HashMap<>();
+    int pos = 0;
+    while (pos + CENTRAL_HEADER_SIZE <= centralSize && central.getInt(pos) == CENTRAL_HEADER_SIGNATURE) {
+      int method = central.getShort(pos + 10) & 0xffff;
+      int nameLength = central.getShort(pos + 28) & 0xffff;
+      int extraLength = central.getShort(pos + 30) & 0xffff;
+      int commentLength = central.getShort(pos + 32) & 0xffff;
+      long localHeaderOffset = central.getInt(pos + 42) & ZIP64_MAGIC;
+      if (method == ZipEntry.STORED && localHeaderOffset != ZIP64_MAGIC) {
+        String name = new String(central.array(), pos + CENTRAL_HEADER_SIZE, nameLength, StandardCharsets.UTF_8);
+        offsets.put(name, localHeaderOffset + shift);
+      }
+      pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+    }
+    return offsets;
+  }
+
+  /**
+   * Reads until the buffer is full.
+   *
+   * @return  {@code false} when end of file reached first
+   */
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int count = channel.read(buffer, position + buffer.position());
+      if (count == -1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decodes the <code>%XX</code> escapes of an entry name, as done by {@link java.net.JarURLConnection}.
+   */
+  private static String decode(String name) {
+    if (name.indexOf('%') == -1) {
+      return name;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(name.length());
+    int len = name.length();
+    for (int i = 0; i < len; i++) {
+      char ch = name.charAt(i);
+      if (ch == '%' && i + 2 < len) {
+        int hi = Character.digit(name.charAt(i + 1), 16);
+        int lo = Character.digit(name.charAt(i + 2), 16);
+        if (hi != -1 && lo != -1) {
+          bytes.write((hi << 4) | lo);
+          i += 2;
+          continue;
+        }
+      }
+      byte[] encoded = String.valueOf(ch).getBytes(StandardCharsets.UTF_8);
+      bytes.write(encoded, 0, encoded.length);
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The opened JARs, by location.  Holds {@link #UNAVAILABLE} for any JAR that could not be opened, so it is accessed
+   * by {@link java.net.JarURLConnection} instead.
+   */
+  private final ConcurrentMap<String, Object> jars = new ConcurrentHashMap<>();
+
+  private static final Object UNAVAILABLE = new Object();
+
+  private boolean closed;
+
+  /**
+   * Resolves the given URL.
+   *
+   * @return  the entry or {@code null} when the URL is not a resolvable <code>jar:file:</code> URL, in which case the
+   *          URL should be used directly
+   */
+  Entry get(URL url) throws IOException {
+    if (!"jar".equals(url.getProtocol())) {
+      return null;
+    }
+    String spec = url.getFile();
+    int sepPos = spec.indexOf(JAR_SEPARATOR);
+    if (
+        sepPos == -1
+            || !spec.startsWith("file:")
+            // Nested JARs
+            || spec.indexOf(JAR_SEPARATOR, sepPos + JAR_SEPARATOR.length()) != -1
+    ) {
+      return null;
+    }
+    String location = spec.substring(0, sepPos);
+    Object jar = jars.get(location);
+    if (jar == null) {
+      jar = open(location);
+    }
+    if (jar == UNAVAILABLE) {
+      return null;
+    }
+    return ((Jar) jar).getEntry(decode(spec.substring(sepPos + JAR_SEPARATOR.length())));
+  }
+
+  private Object open(String location) {
+    synchronized (jars) {
+      Object jar = jars.get(location);
+      if (jar == null) {
+        if (closed) {
+          return UNAVAILABLE;
+        }
+        try {
+          jar = new Jar(Paths.get(URI.create(location)).toFile());
+        } catch (IOException | IllegalArgumentException | FileSystemNotFoundException e) {
+          logger.log(Level.FINE, "Unable to open JAR, using URLs: " + location, e);
+          jar = UNAVAILABLE;
+        }
+        jars.put(location, jar);
+      }
+      return jar;
+    }
+  }
+
+  /**
+   * Closes all JARs.
+   */
+  void close() {
+    synchronized (jars) {
+      closed = true;
+      for (Object jar : jars.values()) {
+        if (jar != UNAVAILABLE) {
+          try {
+            ((Jar) jar).close();
+          } catch (IOException e) {
+            logger.log(Level.WARNING, null, e);
+          }
+        }
+      }
+      jars.clear();
+    }
+  }
+}
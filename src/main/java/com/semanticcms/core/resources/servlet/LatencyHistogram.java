@@ -0,0 +1,125 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latencies, with power-of-two nanosecond buckets.
+ * Recording is allocation-free once the underlying {@link LongAdder} cells have been created.
+ */
+final class LatencyHistogram {
+
+  /**
+   * One bucket for zero, then one for each bit length.
+   */
+  private static final int BUCKETS = Long.SIZE + 1;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final LongAdder totalNanos = new LongAdder();
+
+  LatencyHistogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records one sample.
+   */
+  void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+    totalNanos.add(nanos);
+  }
+
+  /**
+   * Gets the number of samples recorded.
+   */
+  long getCount() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  /**
+   * Gets the total of all samples recorded.
+   */
+  long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  /**
+   * Gets the sample counts of each bucket.  Bucket <code>i</code> contains samples less than
+   * <code>2<sup>i</sup></code> nanoseconds and, except bucket zero, at least <code>2<sup>i - 1</sup></code>.
+   */
+  long[] getBuckets() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+
+  /**
+   * Estimates the given percentile as the upper bound of the bucket containing it.
+   *
+   * @param  percentile  Between 0 and 100.
+   *
+   * @return  the estimate or zero when no samples recorded
+   */
+  long getPercentileNanos(double percentile) {
+    long[] counts = getBuckets();
+    long count = 0;
+    for (long c : counts) {
+      count += c;
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long target = (long) Math.ceil(count * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= target && counts[i] != 0) {
+        return (i >= Long.SIZE - 1) ? Long.MAX_VALUE : (1L << i);
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+
+  /**
+   * Clears all samples.
+   */
+  void reset() {
+    for (LongAdder bucket : buckets) {
+      bucket.reset();
+    }
+    totalNanos.reset();
+  }
+}
@@ -0,0 +1,576 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import com.aoapps.servlet.attribute.ScopeEE;
+import com.aoapps.tempfiles.TempFile;
+import com.aoapps.tempfiles.TempFileContext;
+import jakarta.servlet.ServletContext;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shares temporary copies of resources that are not available as local files, such as those contained in JAR files.
+ * Each copy is identified by its servlet path along with the last modified time and length of the source, so a
+ * modified resource is materialized again.
+ *
+ * <p>Concurrent requests for the same version are coalesced into a single copy, with all callers waiting on the
+ * result.  A failed copy is reported to each waiting caller and is not cached.</p>
+ *
+ * <p>The copy is written incrementally, and {@linkplain #openStream(com.semanticcms.core.resources.servlet.MaterializedFileCache.Key) streams}
+ * may follow it while still being written, so readers do not wait for the whole copy.</p>
+ *
+ * <p>When a {@link PersistentCache} is used, copies are kept there instead of in temporary files, and are reused
+ * after a restart.  Copies kept from before a restart are added when the cache is created, least recently written
+ * first, so all persisted copies count toward the same budget.  They are deleted when evicted, but are kept when the
+ * cache is closed.</p>
+ *
+ * <p>Entries are reference-counted.  The least recently used entries are evicted once the total size exceeds the
+ * configured budget, but the underlying file is only deleted once the last connection using it has been closed.</p>
+ */
+final class MaterializedFileCache {
+
+  private static final Logger logger = Logger.getLogger(MaterializedFileCache.class.getName());
+
+  /**
+   * Copies the content of a resource to the given stream, which is written to the file as it is copied.
+   */
+  @FunctionalInterface
+  static interface Materializer {
+    void copyTo(OutputStream out) throws IOException;
+  }
+
+  /**
+   * Identifies one version of a resource.
+   */
+  static final class Key {
+
+    final String servletPath;
+    final long lastModified;
+    final long length;
+
+    Key(String servletPath, long lastModified, long length) {
+      this.servletPath = servletPath;
+      this.lastModified = lastModified;
+      this.length = length;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return
+          lastModified == other.lastModified
+              && length == other.length
+              && servletPath.equals(other.servletPath);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = servletPath.hashCode();
+      hash = hash * 31 + Long.hashCode(lastModified);
+      return hash * 31 + Long.hashCode(length);
+    }
+
+    @Override
+    public String toString() {
+      return servletPath + " (lastModified=" + lastModified + ", length=" + length + ')';
+    }
+  }
+
+  /**
+   * A materialized file, which must be {@linkplain #release(com.semanticcms.core.resources.servlet.MaterializedFileCache.Entry) released}
+   * when no longer used.
+   */
+  static final class Entry {
+
+    private final Key key;
+
+    /**
+     * The temporary file or {@code null} when persisted.
+     */
+    private final TempFile tempFile;
+
+    private final File file;
+
+    // All guarded by the cache lock
+    private long size;
+    private int refCount;
+    private boolean evicted;
+    private boolean deleted;
+    private Thread leader;
+
+    // Copy progress, written only by the leader
+    private final Lock progressLock = new ReentrantLock();
+    private final Condition progressed = progressLock.newCondition();
+    private volatile long written;
+    private volatile boolean complete;
+    private volatile boolean failed;
+
+    private Entry(Key key, TempFile tempFile, File file) {
+      this.key = key;
+      this.tempFile = tempFile;
+      this.file = file;
+    }
+
+    File getFile() {
+      return file;
+    }
+
+    /**
+     * Gets the number of bytes currently in the file.
+     */
+    long getWritten() {
+      return written;
+    }
+
+    /**
+     * Waits until more than the given number of bytes have been written or the copy has finished.
+     *
+     * @return  {@code true} when more bytes are available or {@code false} when the copy completed at the given
+     *          position
+     *
+     * @throws  IOException  when the copy failed
+     */
+    boolean awaitWritten(long position) throws IOException {
+      progressLock.lock();
+      try {
+        while (written <= position && !complete) {
+          progressed.await();
+        }
+      } catch (InterruptedException e) {
+        // Restore the interrupted status
+        Thread.currentThread().interrupt();
+        InterruptedIOException ioErr = new InterruptedIOException();
+        ioErr.initCause(e);
+        throw ioErr;
+      } finally {
+        progressLock.unlock();
+      }
+      if (written > position) {
+        return true;
+      }
+      if (failed) {
+        throw new IOException("Materialization failed: " + key);
+      }
+      return false;
+    }
+
+    private void advance(long count) {
+      progressLock.lock();
+      try {
+        written += count;
+        progressed.signalAll();
+      } finally {
+        progressLock.unlock();
+      }
+    }
+
+    private void finish(boolean success) {
+      progressLock.lock();
+      try {
+        failed = !success;
+        complete = true;
+        progressed.signalAll();
+      } finally {
+        progressLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Writes to the file, advancing the progress of the entry after each write.
+   */
+  private static final class ProgressOutputStream extends FilterOutputStream {
+
+    private final Entry entry;
+
+    private ProgressOutputStream(Entry entry, OutputStream out) {
+      super(out);
+      this.entry = entry;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      entry.advance(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      entry.advance(len);
+    }
+  }
+
+  private final ServletContext servletContext;
+  private final long maxBytes;
+  private final PersistentCache persistentCache;
+
+  private final Object lock = new Object();
+
+  /**
+   * Access-ordered for LRU eviction.
+   */
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * The entries currently being copied.
+   */
+  private final Map<Key, Entry> copying = new HashMap<>();
+
+  /**
+   * The total size of all files on disk, including evicted entries that are still referenced.
+   */
+  private long diskBytes;
+
+  private TempFileContext tempFileContext;
+
+  private boolean closed;
+
+  private final SingleFlight<Key, Entry> materializations = new SingleFlight<>();
+
+  /**
+   * @param  persistentCache  Where to keep copies or {@code null} to use temporary files.
+   */
+  MaterializedFileCache(ServletContext servletContext, long maxBytes, PersistentCache persistentCache) {
+    this.servletContext = servletContext;
+    this.maxBytes = maxBytes;
+    this.persistentCache = persistentCache;
+    if (persistentCache != null) {
+      addPersisted();
+    }
+  }
+
+  /**
+   * Adds the copies kept from before a restart, then evicts until within budget.
+   */
+  private void addPersisted() {
+    List<Entry> persisted = new ArrayList<>();
+    for (Map.Entry<String, PersistentCache.Record> mapEntry : persistentCache.getRecords().entrySet()) {
+      String servletPath = mapEntry.getKey();
+      PersistentCache.Record record = mapEntry.getValue();
+      File file = persistentCache.getFile(record);
+      if (file != null) {
+        if (file.length() != record.length) {
+          // Removed or damaged outside the application
+          if (persistentCache.remove(servletPath, record)) {
+            try {
+              Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+              logger.log(Level.WARNING, "Unable to delete persisted file: " + file, e);
+            }
+          }
+        } else {
+          Entry entry = new Entry(new Key(servletPath, record.lastModified, record.length), null, file);
+          entry.advance(record.length);
+          entry.finish(true);
+          persisted.add(entry);
+        }
+      }
+    }
+    // Least recently written are evicted first
+    persisted.sort(Comparator.comparingLong(entry -> entry.file.lastModified()));
+    synchronized (lock) {
+      for (Entry entry : persisted) {
+        entry.size = entry.written;
+        diskBytes += entry.size;
+        entries.put(entry.key, entry);
+      }
+      evict();
+    }
+  }
+
+  private TempFileContext getTempFileContext() {
+    assert Thread.holdsLock(lock);
+    if (tempFileContext == null) {
+      tempFileContext = new TempFileContext(
+          ScopeEE.Application.TEMPDIR.context(servletContext).get()
+      );
+    }
+    return tempFileContext;
+  }
+
+  /**
+   * Gets the materialized file for the given key, materializing it when not already cached.
+   * Concurrent requests for the same key share a single materialization.
+   * The caller must {@linkplain #release(com.semanticcms.core.resources.servlet.MaterializedFileCache.Entry) release}
+   * the returned entry.
+   */
+  Entry acquire(Key key, Materializer materializer) throws IOException {
+    while (true) {
+      synchronized (lock) {
+        if (closed) {
+          throw new IllegalStateException("Cache closed");
+        }
+        Entry existing = entries.get(key);
+        if (existing != null) {
+          existing.refCount++;
+          return existing;
+        }
+      }
+      Thread leader = Thread.currentThread();
+      Entry entry = materializations.execute(key, () -> materialize(key, materializer, leader));
+      synchronized (lock) {
+        if (entry.leader == leader) {
+          // Reference already held by the leader
+          entry.leader = null;
+          return entry;
+        }
+        if (!entry.deleted) {
+          entry.refCount++;
+          return entry;
+        }
+      }
+      // Evicted and deleted before this follower could reference it, try again
+    }
+  }
+
+  /**
+   * Opens a stream over the copy of the given version of a resource, following the copy while it is being written.
+   * The entry is referenced until the stream is closed.
+   *
+   * @return  the stream or {@code null} when the version is neither copied nor being copied
+   */
+  GrowingFileInputStream openStream(Key key) throws IOException {
+    Entry entry;
+    synchronized (lock) {
+      if (closed) {
+        return null;
+      }
+      entry = entries.get(key);
+      if (entry == null) {
+        entry = copying.get(key);
+        if (entry == null) {
+          return null;
+        }
+      }
+      entry.refCount++;
+    }
+    boolean success = false;
+    try {
+      GrowingFileInputStream in = new GrowingFileInputStream(this, entry);
+      success = true;
+      return in;
+    } finally {
+      if (!success) {
+        release(entry);
+      }
+    }
+  }
+
+  /**
+   * Copies to a new file and adds the entry, with a single reference held by the leader.
+   * The entry is available to {@link #openStream(com.semanticcms.core.resources.servlet.MaterializedFileCache.Key)}
+   * while being copied.
+   */
+  private Entry materialize(Key key, Materializer materializer, Thread leader) throws IOException {
+    Entry entry;
+    if (persistentCache != null) {
+      File persisted = persistentCache.getFile(key.servletPath, key.lastModified, key.length);
+      if (persisted != null) {
+        // Still on disk, evicted while in use
+        entry = new Entry(key, null, persisted);
+        entry.advance(key.length);
+        entry.finish(true);
+        synchronized (lock) {
+          entry.refCount = 1;
+          entry.leader = leader;
+        }
+        return add(entry);
+      }
+      entry = new Entry(key, null, persistentCache.newFile(key.servletPath, key.lastModified, key.length));
+    } else {
+      TempFileContext context;
+      synchronized (lock) {
+        context = getTempFileContext();
+      }
+      TempFile tempFile = context.createTempFile(ServletResourceConnection.class.getName(), null);
+      entry = new Entry(key, tempFile, tempFile.getFile());
+    }
+    synchronized (lock) {
+      entry.refCount = 1;
+      entry.leader = leader;
+      copying.put(key, entry);
+    }
+    boolean success = false;
+    try {
+      try (OutputStream out = new ProgressOutputStream(entry, new FileOutputStream(entry.file))) {
+        materializer.copyTo(out);
+      }
+      if (persistentCache != null) {
+        persistentCache.putFile(key.servletPath, key.lastModified, key.length, entry.file);
+      }
+      success = true;
+    } finally {
+      synchronized (lock) {
+        copying.remove(key, entry);
+        if (!success) {
+          // Deleted once any streams following the copy are closed
+          entry.evicted = true;
+          entry.leader = null;
+          if (--entry.refCount == 0) {
+            delete(entry);
+          }
+        }
+      }
+      entry.finish(success);
+    }
+    return add(entry);
+  }
+
+  /**
+   * Adds a completed entry, replacing any previous entry for the same key.
+   */
+  private Entry add(Entry entry) {
+    Key key = entry.key;
+    synchronized (lock) {
+      entry.size = entry.written;
+      diskBytes += entry.size;
+      if (closed) {
+        entry.evicted = true;
+      } else {
+        // Replaces any entry added by a previous flight, which will be deleted when released
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+          previous.evicted = true;
+          if (previous.refCount == 0) {
+            delete(previous);
+          }
+        }
+        evict();
+      }
+      return entry;
+    }
+  }
+
+  /**
+   * Evicts least recently used entries until within budget.
+   * Evicted entries remain on disk until released.
+   */
+  private void evict() {
+    assert Thread.holdsLock(lock);
+    Iterator<Entry> iter = entries.values().iterator();
+    while (diskBytes > maxBytes && iter.hasNext()) {
+      Entry entry = iter.next();
+      iter.remove();
+      entry.evicted = true;
+      if (entry.refCount == 0) {
+        delete(entry);
+      }
+    }
+  }
+
+  private void delete(Entry entry) {
+    assert Thread.holdsLock(lock);
+    assert entry.evicted;
+    assert !entry.deleted;
+    entry.deleted = true;
+    diskBytes -= entry.size;
+    try {
+      if (entry.tempFile != null) {
+        entry.tempFile.close();
+      } else if (!entry.complete || entry.failed) {
+        // Partial persisted copy
+        Files.deleteIfExists(entry.file.toPath());
+      } else if (!closed) {
+        // Kept on close for the next start, otherwise deleted unless the same file is used by a newer entry
+        Key key = entry.key;
+        Entry current = entries.get(key);
+        if ((current == null || current == entry) && copying.get(key) == null) {
+          persistentCache.removeFile(key.servletPath, key.lastModified, key.length);
+        }
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Unable to delete materialized file: " + entry.key, e);
+    }
+  }
+
+  /**
+   * Discards the entry for the given version, such as when a persisted copy no longer matches its source.
+   * The file is deleted once no longer in use.
+   */
+  void discard(Key key) {
+    synchronized (lock) {
+      Entry entry = entries.remove(key);
+      if (entry != null) {
+        entry.evicted = true;
+        if (entry.refCount == 0) {
+          delete(entry);
+        }
+      }
+    }
+  }
+
+  /**
+   * Releases an entry previously returned from {@link #acquire(com.semanticcms.core.resources.servlet.MaterializedFileCache.Key, com.semanticcms.core.resources.servlet.MaterializedFileCache.Materializer)}
+   * or referenced by {@link #openStream(com.semanticcms.core.resources.servlet.MaterializedFileCache.Key)}.
+   */
+  void release(Entry entry) {
+    synchronized (lock) {
+      assert entry.refCount > 0;
+      if (--entry.refCount == 0 && entry.evicted) {
+        delete(entry);
+      }
+    }
+  }
+
+  /**
+   * Evicts all entries and deletes any that are not currently in use.
+   * Entries in use are deleted when released.
+   */
+  void close() {
+    synchronized (lock) {
+      closed = true;
+      Iterator<Entry> iter = entries.values().iterator();
+      while (iter.hasNext()) {
+        Entry entry = iter.next();
+        iter.remove();
+        entry.evicted = true;
+        if (entry.refCount == 0) {
+          delete(entry);
+        }
+      }
+    }
+  }
+}
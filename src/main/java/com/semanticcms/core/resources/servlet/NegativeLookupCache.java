@@ -0,0 +1,139 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers, for a short time, servlet paths that were not found.
+ * Repeated lookups of missing resources are otherwise more expensive than hits, since they fall through both
+ * {@link jakarta.servlet.ServletContext#getRealPath(java.lang.String)} and
+ * {@link jakarta.servlet.ServletContext#getResource(java.lang.String)}.
+ */
+final class NegativeLookupCache {
+
+  /**
+   * A path in the order added, which is also the order of expiration since all use the same time-to-live.
+   */
+  private static final class Added {
+
+    private final String servletPath;
+    private final Long expiration;
+
+    private Added(String servletPath, Long expiration) {
+      this.servletPath = servletPath;
+      this.expiration = expiration;
+    }
+  }
+
+  private final long ttlNanos;
+  private final int maxEntries;
+
+  /**
+   * The {@link System#nanoTime()} each entry expires.
+   */
+  private final ConcurrentMap<String, Long> expirations = new ConcurrentHashMap<>();
+
+  /**
+   * The paths in the order added, including any since forgotten or added again.
+   * Guarded by itself.
+   */
+  private final Queue<Added> order = new ArrayDeque<>();
+
+  NegativeLookupCache(long ttlMillis, int maxEntries) {
+    this.ttlNanos = ttlMillis * 1000000;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Checks if the given servlet path is known to be missing.
+   */
+  boolean isMissing(String servletPath) {
+    Long expiration = expirations.get(servletPath);
+    if (expiration == null) {
+      return false;
+    }
+    if (System.nanoTime() - expiration < 0) {
+      return true;
+    }
+    expirations.remove(servletPath, expiration);
+    return false;
+  }
+
+  /**
+   * Records the given servlet path as missing.
+   * Expired entries are removed, and the oldest entries are forgotten when full, so each call does a constant amount
+   * of work on average.
+   */
+  void putMissing(String servletPath) {
+    long now = System.nanoTime();
+    Long expiration = now + ttlNanos;
+    synchronized (order) {
+      Added oldest;
+      while (
+          (oldest = order.peek()) != null
+              && (
+                now - oldest.expiration >= 0
+                    || expirations.size() >= maxEntries
+                    || order.size() > maxEntries * 2
+              )
+      ) {
+        order.remove();
+        // Only when not added again since
+        expirations.remove(oldest.servletPath, oldest.expiration);
+      }
+      if (maxEntries > 0) {
+        expirations.put(servletPath, expiration);
+        order.add(new Added(servletPath, expiration));
+      }
+    }
+  }
+
+  /**
+   * Forgets the given servlet path.
+   */
+  void invalidate(String servletPath) {
+    expirations.remove(servletPath);
+  }
+
+  /**
+   * Forgets all servlet paths starting with the given prefix.
+   */
+  void invalidatePrefix(String prefix) {
+    expirations.keySet().removeIf(servletPath -> servletPath.startsWith(prefix));
+  }
+
+  /**
+   * Forgets all servlet paths.
+   */
+  void invalidateAll() {
+    synchronized (order) {
+      expirations.clear();
+      order.clear();
+    }
+  }
+}
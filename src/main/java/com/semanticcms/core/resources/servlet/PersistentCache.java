@@ -0,0 +1,385 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps materialized copies and content digests in a directory that survives restarts.  Each version is identified
+ * by its servlet path along with the last modified time and length of the source, so a persisted copy or digest is
+ * only used when it matches the current version of the source.
+ *
+ * <p>The index is an append-only log of records, compacted when opened.  Copies are written directly to their final
+ * name, and only recorded in the index once complete, so any partial copies left by a crash are removed on the next
+ * start.</p>
+ *
+ * <p>The directory must not be shared by more than one running application.</p>
+ */
+final class PersistentCache {
+
+  private static final Logger logger = Logger.getLogger(PersistentCache.class.getName());
+
+  private static final String INDEX_NAME = "index";
+  private static final String INDEX_TEMP_NAME = "index.new";
+  private static final int MAGIC = 0x53435253; // "SCRS"
+  private static final int VERSION = 1;
+
+  private static final byte RECORD_FILE = 1;
+  private static final byte RECORD_DIGEST = 2;
+  private static final byte RECORD_REMOVE = 3;
+
+  /**
+   * What is known about the current version of a resource.
+   */
+  static final class Record {
+
+    final long lastModified;
+    final long length;
+
+    /**
+     * The name of the copy within the directory or {@code null} when not materialized.
+     */
+    final String fileName;
+
+    /**
+     * The content digest or {@code null} when not computed.
+     */
+    final String digest;
+
+    private Record(long lastModified, long length, String fileName, String digest) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.fileName = fileName;
+      this.digest = digest;
+    }
+
+    boolean matches(long lastModified, long length) {
+      return this.lastModified == lastModified && this.length == length;
+    }
+  }
+
+  private final File directory;
+
+  /**
+   * One record per servlet path, guarded by this cache.
+   */
+  private final Map<String, Record> records;
+
+  private DataOutputStream log;
+
+  private PersistentCache(File directory, Map<String, Record> records, DataOutputStream log) {
+    this.directory = directory;
+    this.records = records;
+    this.log = log;
+  }
+
+  /**
+   * Opens the cache in the given directory, creating it when missing.  The index is read and compacted, and any files
+   * not in the index are deleted.
+   */
+  static PersistentCache open(File directory) throws IOException {
+    Files.createDirectories(directory.toPath());
+    Map<String, Record> records = new HashMap<>();
+    File indexFile = new File(directory, INDEX_NAME);
+    if (indexFile.exists()) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+        if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+          while (true) {
+            byte type;
+            try {
+              type = in.readByte();
+            } catch (EOFException e) {
+              break;
+            }
+            String servletPath = in.readUTF();
+            if (type == RECORD_REMOVE) {
+              records.remove(servletPath);
+            } else {
+              long lastModified = in.readLong();
+              long length = in.readLong();
+              String value = in.readUTF();
+              Record existing = records.get(servletPath);
+              if (existing == null || !existing.matches(lastModified, length)) {
+                existing = new Record(lastModified, length, null, null);
+              }
+              records.put(
+                  servletPath,
+                  (type == RECORD_FILE)
+                      ? new Record(lastModified, length, value, existing.digest)
+                      : new Record(lastModified, length, existing.fileName, value)
+              );
+            }
+          }
+        } else {
+          logger.warning("Ignoring index of unexpected format: " + indexFile);
+        }
+      } catch (EOFException e) {
+        // Partially written record from a crash, use what was read
+        logger.log(Level.FINE, "Index truncated: " + indexFile, e);
+      }
+    }
+    // Remove any files not in the index
+    Map<String, Boolean> referenced = new HashMap<>();
+    for (Record record : records.values()) {
+      if (record.fileName != null) {
+        referenced.put(record.fileName, Boolean.TRUE);
+      }
+    }
+    String[] list = directory.list();
+    if (list != null) {
+      for (String name : list) {
+        if (!INDEX_NAME.equals(name) && !referenced.containsKey(name)) {
+          Files.deleteIfExists(new File(directory, name).toPath());
+        }
+      }
+    }
+    // Compact
+    File tempFile = new File(directory, INDEX_TEMP_NAME);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      for (Map.Entry<String, Record> entry : records.entrySet()) {
+        Record record = entry.getValue();
+        if (record.fileName != null) {
+          writeRecord(out, RECORD_FILE, entry.getKey(), record.lastModified, record.length, record.fileName);
+        }
+        if (record.digest != null) {
+          writeRecord(out, RECORD_DIGEST, entry.getKey(), record.lastModified, record.length, record.digest);
+        }
+      }
+    }
+    Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    DataOutputStream log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)));
+    return new PersistentCache(directory, records, log);
+  }
+
+  private static void writeRecord(DataOutputStream out, byte type, String servletPath, long lastModified, long length, String value) throws IOException {
+    out.writeByte(type);
+    out.writeUTF(servletPath);
+    out.writeLong(lastModified);
+    out.writeLong(length);
+    out.writeUTF(value);
+  }
+
+  /**
+   * Appends a record to the index.
+   */
+  private void append(byte type, String servletPath, long lastModified, long length, String value) {
+    assert Thread.holdsLock(this);
+    if (log != null) {
+      try {
+        if (type == RECORD_REMOVE) {
+          log.writeByte(type);
+          log.writeUTF(servletPath);
+        } else {
+          writeRecord(log, type, servletPath, lastModified, length, value);
+        }
+        log.flush();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, "Unable to write index, no longer persisting: " + directory, e);
+        close();
+      }
+    }
+  }
+
+  /**
+   * Gets the name of the file for the given version of a resource.
+   */
+  private static String getFileName(String servletPath, long lastModified, long length) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(servletPath.getBytes(StandardCharsets.UTF_8));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(hash)
+          + '-' + Long.toHexString(lastModified)
+          + '-' + Long.toHexString(length);
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("SHA-256 is required by the Java platform", e);
+    }
+  }
+
+  /**
+   * Gets the file to copy the given version of a resource to.
+   * The copy is only used after {@linkplain #putFile(java.lang.String, long, long, java.io.File) recorded}.
+   */
+  File newFile(String servletPath, long lastModified, long length) {
+    return new File(directory, getFileName(servletPath, lastModified, length));
+  }
+
+  /**
+   * Gets the persisted copy of the given version of a resource.
+   *
+   * @return  the file or {@code null} when not persisted
+   */
+  synchronized File getFile(String servletPath, long lastModified, long length) {
+    Record record = records.get(servletPath);
+    return (record == null || !record.matches(lastModified, length)) ? null : getFile(record);
+  }
+
+  /**
+   * Gets the persisted copy of a record.
+   *
+   * @return  the file or {@code null} when not materialized
+   */
+  File getFile(Record record) {
+    return (record.fileName == null) ? null : new File(directory, record.fileName);
+  }
+
+  /**
+   * Records a completed copy from {@link #newFile(java.lang.String, long, long)}.
+   */
+  synchronized void putFile(String servletPath, long lastModified, long length, File file) {
+    Record record = replace(servletPath, lastModified, length);
+    records.put(servletPath, new Record(lastModified, length, file.getName(), (record == null) ? null : record.digest));
+    append(RECORD_FILE, servletPath, lastModified, length, file.getName());
+  }
+
+  /**
+   * Deletes the copy of the given version of a resource, such as when evicted.  The index is updated when the copy
+   * is of the current version, keeping any digest.
+   */
+  synchronized void removeFile(String servletPath, long lastModified, long length) {
+    String fileName = getFileName(servletPath, lastModified, length);
+    Record record = records.get(servletPath);
+    if (record != null && record.matches(lastModified, length) && fileName.equals(record.fileName)) {
+      records.remove(servletPath);
+      append(RECORD_REMOVE, servletPath, 0, 0, null);
+      if (record.digest != null) {
+        records.put(servletPath, new Record(lastModified, length, null, record.digest));
+        append(RECORD_DIGEST, servletPath, lastModified, length, record.digest);
+      }
+    }
+    try {
+      Files.deleteIfExists(new File(directory, fileName).toPath());
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Unable to delete persisted file: " + fileName, e);
+    }
+  }
+
+  /**
+   * Gets the persisted digest of the given version of a resource.
+   *
+   * @return  the digest or {@code null} when not persisted
+   */
+  synchronized String getDigest(String servletPath, long lastModified, long length) {
+    Record record = records.get(servletPath);
+    return (record == null || !record.matches(lastModified, length)) ? null : record.digest;
+  }
+
+  /**
+   * Records the digest of the given version of a resource.
+   */
+  synchronized void putDigest(String servletPath, long lastModified, long length, String digest) {
+    Record record = replace(servletPath, lastModified, length);
+    records.put(servletPath, new Record(lastModified, length, (record == null) ? null : record.fileName, digest));
+    append(RECORD_DIGEST, servletPath, lastModified, length, digest);
+  }
+
+  /**
+   * Gets the current record for the given version.  The copy of any other version is left in place, since it may
+   * still be in use, and is deleted once evicted from the {@link MaterializedFileCache} or, at the latest, on the next
+   * start once no longer in the index.
+   *
+   * @return  the record for the same version or {@code null} when none
+   */
+  private Record replace(String servletPath, long lastModified, long length) {
+    assert Thread.holdsLock(this);
+    Record record = records.get(servletPath);
+    return (record != null && record.matches(lastModified, length)) ? record : null;
+  }
+
+  /**
+   * Removes everything known about a resource, only when still the given record.  Any copy is left in place, since it
+   * may still be in use, and must be discarded from the {@link MaterializedFileCache}.
+   *
+   * @return  {@code true} when removed
+   */
+  synchronized boolean remove(String servletPath, Record record) {
+    if (records.remove(servletPath, record)) {
+      append(RECORD_REMOVE, servletPath, 0, 0, null);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Deletes all persisted copies, keeping any digests.  Used when copies are not materialized, so none can be in use.
+   */
+  synchronized void removeFiles() {
+    for (Map.Entry<String, Record> entry : records.entrySet()) {
+      Record record = entry.getValue();
+      if (record.fileName != null) {
+        String servletPath = entry.getKey();
+        append(RECORD_REMOVE, servletPath, 0, 0, null);
+        if (record.digest != null) {
+          entry.setValue(new Record(record.lastModified, record.length, null, record.digest));
+          append(RECORD_DIGEST, servletPath, record.lastModified, record.length, record.digest);
+        }
+        try {
+          Files.deleteIfExists(new File(directory, record.fileName).toPath());
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Unable to delete persisted file: " + record.fileName, e);
+        }
+      }
+    }
+    records.values().removeIf(record -> record.fileName != null);
+  }
+
+  /**
+   * Gets a snapshot of all records, by servlet path.
+   */
+  synchronized Map<String, Record> getRecords() {
+    return new HashMap<>(records);
+  }
+
+  /**
+   * Stops writing the index.  Persisted copies are left for the next start.
+   */
+  synchronized void close() {
+    if (log != null) {
+      try {
+        log.close();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, null, e);
+      }
+      log = null;
+    }
+  }
+}
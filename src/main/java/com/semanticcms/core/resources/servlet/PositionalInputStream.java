@@ -0,0 +1,109 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a range of a {@link FileChannel} with positional reads, so any number of streams may share the same channel
+ * without affecting its position.  Closing the stream does not close the channel.
+ */
+final class PositionalInputStream extends InputStream {
+
+  private final FileChannel channel;
+  private long position;
+  private final long end;
+  private long mark;
+
+  /**
+   * @param  offset  The position of the first byte.
+   * @param  length  The maximum number of bytes.
+   */
+  PositionalInputStream(FileChannel channel, long offset, long length) {
+    this.channel = channel;
+    this.position = offset;
+    this.mark = offset;
+    // Saturate on overflow
+    long sum = offset + length;
+    this.end = (sum < 0) ? Long.MAX_VALUE : sum;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] buff = new byte[1];
+    return (read(buff, 0, 1) == -1) ? -1 : (buff[0] & 0xff);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    long remaining = end - position;
+    if (remaining <= 0) {
+      return -1;
+    }
+    if (len > remaining) {
+      len = (int) remaining;
+    }
+    int count = channel.read(ByteBuffer.wrap(b, off, len), position);
+    if (count > 0) {
+      position += count;
+    }
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0) {
+      return 0;
+    }
+    long skipped = Math.min(n, Math.max(0, Math.min(end, channel.size()) - position));
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(0, Math.min(end, channel.size()) - position));
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark(int readlimit) {
+    mark = position;
+  }
+
+  @Override
+  public void reset() {
+    position = mark;
+  }
+}
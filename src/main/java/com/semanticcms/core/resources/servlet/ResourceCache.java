@@ -0,0 +1,112 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import com.aoapps.net.Path;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The resources of a store kept for reuse, discarding approximately the least recently used once full.
+ *
+ * <p>Hits only read a {@link ConcurrentHashMap} and mark the entry as referenced, so lookups from many threads do not
+ * contend.  Only adding a resource takes a lock, to sweep a clock over the entries in the order added: referenced
+ * entries are given a second chance, while the others are discarded.</p>
+ */
+final class ResourceCache {
+
+  private static final class Entry {
+
+    private final ServletResource resource;
+
+    /**
+     * Set on each use and cleared as the clock passes.  Races only affect which entry is discarded.
+     */
+    private volatile boolean referenced;
+
+    private Entry(ServletResource resource) {
+      this.resource = resource;
+    }
+  }
+
+  private final ServletResourceStore store;
+  private final int maxEntries;
+  private final ConcurrentMap<Path, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * The paths in the order the clock visits them.
+   * Guarded by itself.
+   */
+  private final Queue<Path> clock = new ArrayDeque<>();
+
+  ResourceCache(ServletResourceStore store, int maxEntries) {
+    this.store = store;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Gets the resource for the given path, creating and adding it when not already present.
+   */
+  ServletResource get(Path path) {
+    Entry entry = entries.get(path);
+    if (entry == null) {
+      Entry newEntry = new Entry(new ServletResource(store, path));
+      entry = entries.putIfAbsent(path, newEntry);
+      if (entry == null) {
+        add(path);
+        return newEntry.resource;
+      }
+    }
+    // Avoid writing to the entry when already marked
+    if (!entry.referenced) {
+      entry.referenced = true;
+    }
+    return entry.resource;
+  }
+
+  /**
+   * Adds a new path to the clock, discarding entries until no longer over the maximum.
+   */
+  private void add(Path path) {
+    synchronized (clock) {
+      clock.add(path);
+      while (entries.size() > maxEntries) {
+        Path hand = clock.poll();
+        if (hand == null) {
+          // Remaining entries are still being added by other threads
+          break;
+        }
+        Entry entry = entries.get(hand);
+        if (entry.referenced) {
+          entry.referenced = false;
+          clock.add(hand);
+        } else {
+          entries.remove(hand);
+        }
+      }
+    }
+  }
+}
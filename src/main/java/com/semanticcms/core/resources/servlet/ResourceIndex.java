@@ -0,0 +1,220 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import jakarta.servlet.ServletContext;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An immutable index of the resources in a store that are not local files, such as those contained in JAR files
+ * under <code>/WEB-INF/lib</code>.  These do not change without the application being redeployed, so their metadata
+ * may be answered from the index for the life of the store.
+ *
+ * <p>The index is stored as sorted, parallel arrays of paths and their immutable metadata, to remain compact for large
+ * numbers of resources.</p>
+ *
+ * <p>Resources whose metadata cannot be read are logged and left out of the index, and are looked-up as usual.</p>
+ */
+final class ResourceIndex {
+
+  private static final Logger logger = Logger.getLogger(ResourceIndex.class.getName());
+
+  private static final class Entry implements Comparable<Entry> {
+
+    private final String servletPath;
+    private final UrlMetadata metadata;
+
+    private Entry(String servletPath, UrlMetadata metadata) {
+      this.servletPath = servletPath;
+      this.metadata = metadata;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      return servletPath.compareTo(other.servletPath);
+    }
+  }
+
+  /**
+   * Walks one directory, forking a new task per sub-directory.
+   */
+  private static final class DirectoryTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ServletResourceStore store;
+    private final String dir;
+    private final transient Queue<Entry> entries;
+    private final transient Queue<String> files;
+    private final transient Queue<String> unindexed;
+
+    private DirectoryTask(ServletResourceStore store, String dir, Queue<Entry> entries, Queue<String> files, Queue<String> unindexed) {
+      this.store = store;
+      this.dir = dir;
+      this.entries = entries;
+      this.files = files;
+      this.unindexed = unindexed;
+    }
+
+    @Override
+    protected void compute() {
+      ServletContext servletContext = store.servletContext;
+      Set<String> paths = servletContext.getResourcePaths(dir);
+      if (paths != null) {
+        List<DirectoryTask> subtasks = new ArrayList<>();
+        for (String servletPath : paths) {
+          if (servletPath.endsWith("/")) {
+            // Never served
+            if (
+                !"/WEB-INF/".equalsIgnoreCase(servletPath)
+                    && !"/META-INF/".equalsIgnoreCase(servletPath)
+            ) {
+              subtasks.add(new DirectoryTask(store, servletPath, entries, files, unindexed));
+            }
+          } else {
+            try {
+              if (isFile(servletPath)) {
+                files.add(servletPath);
+              } else {
+                URL url = servletContext.getResource(servletPath);
+                if (url != null) {
+                  JarResources.Entry jarEntry = (store.jars == null) ? null : store.jars.get(url);
+                  entries.add(new Entry(servletPath, (jarEntry != null) ? jarEntry.metadata : UrlMetadata.fetch(url)));
+                }
+              }
+            } catch (IOException e) {
+              logger.log(Level.WARNING, "Unable to index, looking-up as usual: " + servletPath, e);
+              unindexed.add(servletPath);
+            }
+          }
+        }
+        invokeAll(subtasks);
+      }
+    }
+
+    /**
+     * Checks if the given path is a local file.  When the store is watching its directory, this also warms
+     * the cached attributes.
+     */
+    private boolean isFile(String servletPath) throws IOException {
+      WatchedDirectory watchedDirectory = store.watchedDirectory;
+      if (watchedDirectory != null) {
+        return watchedDirectory.getSnapshot(servletPath.substring(store.prefix.length())).file != null;
+      }
+      String realPath = store.servletContext.getRealPath(servletPath);
+      return realPath != null && ServletResourceConnection.readAttributes(new File(realPath)) != null;
+    }
+  }
+
+  /**
+   * Builds the index for the given store in parallel.
+   */
+  static ResourceIndex build(ServletResourceStore store, ForkJoinPool pool) {
+    long startNanos = System.nanoTime();
+    Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    Queue<String> files = new ConcurrentLinkedQueue<>();
+    Queue<String> unindexed = new ConcurrentLinkedQueue<>();
+    pool.invoke(new DirectoryTask(store, store.prefix + '/', entries, files, unindexed));
+    Entry[] sorted = entries.toArray(new Entry[entries.size()]);
+    Arrays.sort(sorted);
+    return new ResourceIndex(sorted, files.size(), unindexed.size(), System.nanoTime() - startNanos);
+  }
+
+  private final String[] servletPaths;
+  private final UrlMetadata[] metadatas;
+  private final int fileCount;
+  private final int unindexedCount;
+  private final long buildNanos;
+
+  private ResourceIndex(Entry[] sorted, int fileCount, int unindexedCount, long buildNanos) {
+    int size = sorted.length;
+    servletPaths = new String[size];
+    metadatas = new UrlMetadata[size];
+    for (int i = 0; i < size; i++) {
+      Entry entry = sorted[i];
+      servletPaths[i] = entry.servletPath;
+      metadatas[i] = entry.metadata;
+    }
+    this.fileCount = fileCount;
+    this.unindexedCount = unindexedCount;
+    this.buildNanos = buildNanos;
+  }
+
+  /**
+   * Gets the metadata for the given servlet path.
+   *
+   * @return  the metadata or {@code null} when not in the index
+   */
+  UrlMetadata get(String servletPath) {
+    int index = Arrays.binarySearch(servletPaths, servletPath);
+    return (index < 0) ? null : metadatas[index];
+  }
+
+  /**
+   * Checks if the given servlet path is in the index.
+   */
+  boolean contains(String servletPath) {
+    return Arrays.binarySearch(servletPaths, servletPath) >= 0;
+  }
+
+  /**
+   * Gets the number of resources in the index.
+   */
+  int size() {
+    return servletPaths.length;
+  }
+
+  /**
+   * Gets the number of local files found while building the index.  These are not included in the index.
+   */
+  int getFileCount() {
+    return fileCount;
+  }
+
+  /**
+   * Gets the number of resources left out of the index because their metadata could not be read.
+   */
+  int getUnindexedCount() {
+    return unindexedCount;
+  }
+
+  /**
+   * Gets the time taken to build the index.
+   */
+  long getBuildNanos() {
+    return buildNanos;
+  }
+}
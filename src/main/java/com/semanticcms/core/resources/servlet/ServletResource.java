@@ -23,20 +23,25 @@
 
 package com.semanticcms.core.resources.servlet;
 
+import com.aoapps.lang.validation.ValidationException;
 import com.aoapps.net.Path;
 import com.aoapps.servlet.ServletContextCache;
 import com.semanticcms.core.resources.Resource;
+import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Local servlet resources.
+ *
+ * <p>When the store {@linkplain ServletResourceStore#DISPATCH_INIT_PARAM allows dispatching}, resources may be
+ * {@linkplain #dispatch(jakarta.servlet.ServletRequest, jakarta.servlet.ServletResponse) forwarded} to the container
+ * instead of being copied to the response, so the container's own static content handling is used.</p>
  */
-// TODO: Expose a way to dispatch to default servlet (or just the resource servletpath)
-//       instead of serving through ResourceServlet?  This would have the side-effect of
-//       potentially exposing other things mapped over this resource servletPath, which may
-//       or may not be desirable.  Is this a more predictable default behavior, so servlet
-//       resources remain more natural?  Security implications?  Performance implications?
 public class ServletResource extends Resource {
 
   final ServletContext servletContext;
@@ -100,6 +105,99 @@ public class ServletResource extends Resource {
     }
   }
 
+  /**
+   * Gets the sibling resource with the given suffix added, such as a pre-compressed variant.
+   *
+   * @return  the resource or {@code null} when the resulting path is invalid
+   */
+  ServletResource getSibling(String suffix) {
+    try {
+      return getStore().getResource(Path.valueOf(getPath().toString() + suffix));
+    } catch (ValidationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Checks if this resource may be {@linkplain #dispatch(jakarta.servlet.ServletRequest, jakarta.servlet.ServletResponse) dispatched}
+   * to the container.  This requires dispatching be enabled for the store, and the servlet path must not be within
+   * <code>/WEB-INF/</code> or <code>/META-INF/</code>, case-insensitive, nor contain any path segment, parameter, or
+   * encoding the container might resolve into one of those.
+   *
+   * @see  ServletResourceStore#DISPATCH_INIT_PARAM
+   */
+  public boolean isDispatchable() {
+    return getStore().dispatch && isDispatchablePath(servletPath);
+  }
+
+  /**
+   * Checks that a servlet path is safe to dispatch to the container.
+   */
+  static boolean isDispatchablePath(String servletPath) {
+    if (
+        !servletPath.startsWith("/")
+            || servletPath.endsWith("/")
+            // Path parameters, encodings, and alternate separators the container may normalize away
+            || servletPath.indexOf(';') != -1
+            || servletPath.indexOf('%') != -1
+            || servletPath.indexOf('\\') != -1
+            || servletPath.indexOf('\0') != -1
+            || servletPath.contains("//")
+            || servletPath.contains("/./")
+            || servletPath.contains("/../")
+            || servletPath.endsWith("/.")
+            || servletPath.endsWith("/..")
+    ) {
+      return false;
+    }
+    return !isProtectedPath(servletPath);
+  }
+
+  /**
+   * Checks if a servlet path is within <code>/WEB-INF/</code> or <code>/META-INF/</code>, case-insensitive, including
+   * names the file system may resolve to either.
+   */
+  static boolean isProtectedPath(String servletPath) {
+    int segmentEnd = servletPath.indexOf('/', 1);
+    String firstSegment = (segmentEnd == -1) ? servletPath.substring(1) : servletPath.substring(1, segmentEnd);
+    // Some file systems ignore trailing dots and spaces, or name alternate streams after a colon
+    int colon = firstSegment.indexOf(':');
+    if (colon != -1) {
+      firstSegment = firstSegment.substring(0, colon);
+    }
+    int len = firstSegment.length();
+    while (len > 0 && (firstSegment.charAt(len - 1) == '.' || firstSegment.charAt(len - 1) == ' ')) {
+      len--;
+    }
+    firstSegment = firstSegment.substring(0, len);
+    return
+        "WEB-INF".equalsIgnoreCase(firstSegment)
+            || "META-INF".equalsIgnoreCase(firstSegment);
+  }
+
+  /**
+   * Forwards the request to the servlet path of this resource, so the container serves it directly, typically
+   * through its default servlet.  This lets the container use its own static content handling, such as sendfile,
+   * its resource cache, and pre-compressed variants.
+   *
+   * <p>The request is dispatched by path, so any servlet or filter mapped over the servlet path of this resource
+   * will handle the request instead.  The response must not be committed.</p>
+   *
+   * @return  {@code true} when forwarded, or {@code false} when not {@linkplain #isDispatchable() dispatchable}, in
+   *          which case the caller should serve the resource itself
+   */
+  public boolean dispatch(ServletRequest request, ServletResponse response) throws ServletException, IOException {
+    if (!isDispatchable()) {
+      return false;
+    }
+    RequestDispatcher dispatcher = servletContext.getRequestDispatcher(servletPath);
+    if (dispatcher == null) {
+      return false;
+    }
+    dispatcher.forward(request, response);
+    return true;
+  }
+
   @Override
   public ServletResourceConnection open() {
     return new ServletResourceConnection(this);
@@ -0,0 +1,76 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+/**
+ * The metadata of an existing resource, read without accessing its content.
+ *
+ * @see  ServletResourceStore#stat(com.aoapps.net.Path)
+ */
+public final class ServletResourceAttributes {
+
+  private final long length;
+  private final long lastModified;
+  private final boolean file;
+
+  ServletResourceAttributes(long length, long lastModified, boolean file) {
+    this.length = length;
+    this.lastModified = lastModified;
+    this.file = file;
+  }
+
+  /**
+   * Gets the length of the resource.
+   *
+   * @return  the length or {@code -1} when unknown
+   *
+   * @see  ServletResourceConnection#getLength()
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Gets the last modified time of the resource.
+   *
+   * @return  the time or {@code 0} when unknown
+   *
+   * @see  ServletResourceConnection#getLastModified()
+   */
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * Checks if the resource is a local file, as opposed to being accessed by URL.
+   */
+  public boolean isFile() {
+    return file;
+  }
+
+  @Override
+  public String toString() {
+    return "ServletResourceAttributes(length=" + length + ", lastModified=" + lastModified + ", file=" + file + ')';
+  }
+}
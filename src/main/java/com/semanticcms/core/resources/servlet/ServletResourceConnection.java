@@ -30,38 +30,82 @@ import com.aoapps.tempfiles.TempFile;
 import com.aoapps.tempfiles.TempFileContext;
 import com.semanticcms.core.resources.ResourceConnection;
 import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * A connection to a local servlet resource.
  */
 public class ServletResourceConnection extends ResourceConnection {
 
+  /**
+   * The content encoding of brotli-compressed variants.
+   */
+  public static final String ENCODING_BROTLI = "br";
+
+  /**
+   * The content encoding of gzip-compressed variants.
+   */
+  public static final String ENCODING_GZIP = "gzip";
+
+  private final ServletResourceStore store;
   private final ServletContext servletContext;
   private final ServletContextCache cache;
+  private final MaterializedFileCache materializedFiles;
+  private final NegativeLookupCache negativeLookups;
+  private final WatchedDirectory watchedDirectory;
+  private final ServletResourceStoreMetrics metrics;
   private final String servletPath;
 
   private File contextFile;
+  private BasicFileAttributes contextFileAttributes;
   private boolean contextFileSet;
 
   private URL contextUrl;
   private boolean contextUrlSet;
 
+  private JarResources.Entry jarEntry;
+  private boolean jarEntrySet;
+
+  private UrlMetadata urlMetadata;
+
   private InputStream in;
 
+  private ReadableByteChannel channel;
+
+  private FileChannel rangeChannel;
+  private List<InputStream> rangeStreams;
+
   private boolean fileAccessed;
 
   private URLConnection urlConn;
   private boolean urlConnInputAccessed;
   private TempFileContext tempFileContext;
   private TempFile tempFile;
+  private MaterializedFileCache.Entry materialized;
 
   private boolean closed;
 
@@ -71,8 +115,13 @@ public class ServletResourceConnection extends ResourceConnection {
    */
   public ServletResourceConnection(ServletResource resource) {
     super(resource);
+    this.store = resource.getStore();
     this.servletContext = resource.servletContext;
     this.cache = resource.cache;
+    this.materializedFiles = store.materializedFiles;
+    this.negativeLookups = store.negativeLookups;
+    this.watchedDirectory = store.watchedDirectory;
+    this.metrics = store.metrics;
     this.servletPath = resource.servletPath;
   }
 
@@ -81,53 +130,204 @@ public class ServletResourceConnection extends ResourceConnection {
     return (ServletResource) resource;
   }
 
+  /**
+   * Reads the attributes of a file in a single operation.
+   *
+   * @return  the attributes or {@code null} when the file does not exist
+   */
+  static BasicFileAttributes readAttributes(File file) throws IOException {
+    try {
+      return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
   /**
    * Gets the underlying file provided by the servlet container, making sure
    * it exists when using the cache.
    *
-   * <p>Only returns files that exist at the time of first access to this method.</p>
+   * <p>Only returns files that exist at the time of first access to this method.
+   * The attributes of the file are read once, at the same time, and are available from
+   * {@link #getContextFileAttributes()}.</p>
    */
-  File getContextFile() {
+  File getContextFile() throws IOException {
     if (!contextFileSet) {
-      if (cache == null) {
-        // Not using cache
-        String realPath = servletContext.getRealPath(servletPath);
-        if (realPath != null) {
-          contextFile = new File(realPath);
-          assert contextFile.exists() : "File doesn't exist from ServletContext.getRealPath: File recently removed? " + contextFile;
+      if (negativeLookups != null && negativeLookups.isMissing(servletPath)) {
+        // Recently not found, skip both lookups
+        metrics.negativeLookupHit(servletPath);
+        contextFileSet = true;
+        contextUrlSet = true;
+        return null;
+      }
+      AdaptiveFreshness adaptive = store.adaptive;
+      if (adaptive != null) {
+        AdaptiveFreshness.Snapshot snapshot = adaptive.get(servletPath);
+        if (snapshot == null) {
+          // Look-up directly
+          long startNanos = System.nanoTime();
+          File file = null;
+          BasicFileAttributes attrs = null;
+          String realPath = servletContext.getRealPath(servletPath);
+          if (realPath != null) {
+            File f = new File(realPath);
+            attrs = readAttributes(f);
+            if (attrs != null) {
+              file = f;
+            }
+          }
+          metrics.fileLookup(servletPath, file != null, System.nanoTime() - startNanos);
+          URL url = null;
+          if (file == null) {
+            startNanos = System.nanoTime();
+            url = servletContext.getResource(servletPath);
+            metrics.urlLookup(servletPath, url != null, System.nanoTime() - startNanos);
+          }
+          snapshot = adaptive.put(servletPath, file, attrs, url);
+        }
+        contextFile = snapshot.file;
+        contextFileAttributes = snapshot.attrs;
+        if (contextFile == null) {
+          contextUrl = snapshot.url;
+          contextUrlSet = true;
         }
+        contextFileSet = true;
+        return contextFile;
+      }
+      long startNanos = System.nanoTime();
+      if (watchedDirectory != null) {
+        // Using watched directory
+        WatchedDirectory.Snapshot snapshot = watchedDirectory.getSnapshot(resource.getPath().toString());
+        contextFile = snapshot.file;
+        contextFileAttributes = snapshot.attrs;
       } else {
-        // Using cache
-        String realPath = cache.getRealPath(servletPath);
+        String realPath = (cache == null)
+            ? servletContext.getRealPath(servletPath)
+            : cache.getRealPath(servletPath);
         if (realPath != null) {
           File f = new File(realPath);
-          // Check that still exists, since using cache contextFile might have been recently removed
-          contextFile = f.exists() ? f : null;
+          BasicFileAttributes attrs = readAttributes(f);
+          // Check that still exists, since contextFile might have been removed since looked-up, with or without cache
+          if (attrs != null) {
+            contextFile = f;
+            contextFileAttributes = attrs;
+          }
         }
       }
       contextFileSet = true;
+      metrics.fileLookup(servletPath, contextFile != null, System.nanoTime() - startNanos);
     }
     return contextFile;
   }
 
-  private URL getContextUrl() throws MalformedURLException {
+  /**
+   * Gets the attributes read along with {@link #getContextFile()}.
+   *
+   * @return  the attributes or {@code null} when the resource is not a local file
+   */
+  BasicFileAttributes getContextFileAttributes() throws IOException {
+    getContextFile();
+    return contextFileAttributes;
+  }
+
+  private URL getContextUrl() throws IOException {
+    if (!contextUrlSet && store.adaptive != null && !contextFileSet) {
+      // Resolved along with the file
+      getContextFile();
+    }
     if (!contextUrlSet) {
+      long startNanos = System.nanoTime();
       contextUrl = (cache == null)
           ? servletContext.getResource(servletPath)
           : cache.getResource(servletPath);
+      if (
+          contextUrl != null
+              && watchedDirectory != null
+              && watchedDirectory.isWatching()
+              && "file".equalsIgnoreCase(contextUrl.getProtocol())
+      ) {
+        // ServletContextCache may still have a file removed from the watched directory until its next refresh
+        try {
+          java.nio.file.Path file = Paths.get(contextUrl.toURI());
+          if (watchedDirectory.contains(file) && !Files.exists(file)) {
+            contextUrl = null;
+          }
+        } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+          // Not a local file, use the URL as-is
+        }
+      }
       contextUrlSet = true;
+      metrics.urlLookup(servletPath, contextUrl != null, System.nanoTime() - startNanos);
+      if (contextUrl == null && negativeLookups != null && contextFileSet && contextFile == null) {
+        negativeLookups.putMissing(servletPath);
+      }
     }
     return contextUrl;
   }
 
+  /**
+   * Gets the entry for a resource accessed by a <code>jar:file:</code> URL, resolved directly against the JAR.
+   *
+   * @return  the entry or {@code null} when the resource is not resolved within a JAR
+   */
+  private JarResources.Entry getJarEntry() throws IOException {
+    if (!jarEntrySet) {
+      JarResources jars = store.jars;
+      if (jars != null) {
+        URL url = getContextUrl();
+        if (url != null) {
+          jarEntry = jars.get(url);
+        }
+      }
+      jarEntrySet = true;
+    }
+    return jarEntry;
+  }
+
+  /**
+   * Gets the metadata for a resource accessed by URL, shared with any concurrent connections to the same resource.
+   */
+  private UrlMetadata getUrlMetadata() throws IOException, FileNotFoundException {
+    if (urlMetadata == null) {
+      ResourceIndex index = store.index;
+      if (index != null) {
+        urlMetadata = index.get(servletPath);
+        if (urlMetadata != null) {
+          metrics.indexHit(servletPath);
+          return urlMetadata;
+        }
+      }
+      URL url = getContextUrl();
+      if (url == null) {
+        throw new FileNotFoundException(resource.toString());
+      }
+      JarResources.Entry entry = getJarEntry();
+      urlMetadata = (entry != null) ? entry.metadata : store.getUrlMetadata(servletPath, url);
+    }
+    return urlMetadata;
+  }
+
+  /**
+   * Gets the connection for the given URL, opening on first use.
+   */
+  private URLConnection getUrlConnection(URL url) throws IOException {
+    if (urlConn == null) {
+      urlConn = url.openConnection();
+      metrics.urlOpen(servletPath);
+    }
+    return urlConn;
+  }
+
   @Override
   public boolean exists() throws IOException, IllegalStateException {
     if (closed) {
       throw new IllegalStateException("Connection closed: " + resource);
     }
+    ResourceIndex index = store.index;
     return
         // Note: non-null from getContextFile means exists.
         getContextFile() != null // Micro optimization?  Thus shortcuts when resource is an existing local file, checking here since other methods use file first, too
+            || (index != null && index.contains(servletPath))
             || getContextUrl() != null;
   }
 
@@ -136,21 +336,13 @@ public class ServletResourceConnection extends ResourceConnection {
     if (closed) {
       throw new IllegalStateException("Connection closed: " + resource);
     }
-    File file = getContextFile();
-    if (file != null) {
-      // Note: non-null from getContextFile means exists.
-      // TODO: Handle 0 as unknown to convert to -1: Files.readAttributes
-      return file.length();
+    BasicFileAttributes attrs = getContextFileAttributes();
+    if (attrs != null) {
+      // Note: non-null from getContextFileAttributes means exists.
+      return attrs.size();
     } else {
       // Handle as URL
-      URL url = getContextUrl();
-      if (url == null) {
-        throw new FileNotFoundException(resource.toString());
-      }
-      if (urlConn == null) {
-        urlConn = url.openConnection();
-      }
-      return urlConn.getContentLengthLong();
+      return getUrlMetadata().length;
     }
   }
 
@@ -159,23 +351,19 @@ public class ServletResourceConnection extends ResourceConnection {
     if (closed) {
       throw new IllegalStateException("Connection closed: " + resource);
     }
-    if (cache == null) {
-      // Not using cache
-      File file = getContextFile();
-      if (file != null) {
-        // Note: non-null from getContextFile means exists.
-        return file.lastModified();
+    if (cache == null || watchedDirectory != null) {
+      // Not using cache, or file attributes cached until changed
+      BasicFileAttributes attrs = getContextFileAttributes();
+      if (attrs != null) {
+        // Note: non-null from getContextFileAttributes means exists.
+        return attrs.lastModifiedTime().toMillis();
       } else {
         // Handle as URL
-        URL url = getContextUrl();
-        if (url == null) {
-          throw new FileNotFoundException(resource.toString());
-        }
-        if (urlConn == null) {
-          urlConn = url.openConnection();
-        }
-        return urlConn.getLastModified();
+        return getUrlMetadata().lastModified;
       }
+    } else if (contextFileAttributes != null) {
+      // Using cache, but already have a snapshot of the file
+      return contextFileAttributes.lastModifiedTime().toMillis();
     } else {
       // Using cache
       long lastModified = cache.getLastModified(servletPath);
@@ -197,17 +385,68 @@ public class ServletResourceConnection extends ResourceConnection {
     }
   }
 
+  /**
+   * Gets a strong entity tag for the current version of this resource, based on a digest of its content.
+   * Digests are computed in the background, so the tag is only available once the same version has been
+   * requested before.
+   *
+   * @return  The quoted entity tag or {@code null} when not yet known, when the resource has no known last modified
+   *          time or length, or when {@linkplain ServletResourceStore#DIGEST_CACHE_MAX_ENTRIES_INIT_PARAM disabled}.
+   *
+   * @throws  FileNotFoundException  when resource doesn't exist
+   */
+  public String getETag() throws IOException, FileNotFoundException, IllegalStateException {
+    DigestCache digests = store.digests;
+    if (digests == null) {
+      if (closed) {
+        throw new IllegalStateException("Connection closed: " + resource);
+      }
+      return null;
+    }
+    long lastModified = getLastModified();
+    long length = getLength();
+    if (lastModified == 0 || length == -1) {
+      return null;
+    }
+    String digest = digests.getDigest(getResource(), lastModified, length);
+    return (digest == null) ? null : ('"' + digest + '"');
+  }
+
+  /**
+   * Reads the attributes of this resource without accessing its content.
+   *
+   * @return  the attributes or {@code null} when the resource does not exist
+   *
+   * @see  ServletResourceStore#stat(com.aoapps.net.Path)
+   */
+  ServletResourceAttributes stat() throws IOException, IllegalStateException {
+    if (!exists()) {
+      return null;
+    }
+    try {
+      return new ServletResourceAttributes(getLength(), getLastModified(), contextFile != null);
+    } catch (FileNotFoundException e) {
+      // Removed since checked
+      return null;
+    }
+  }
+
   @Override
   public InputStream getInputStream() throws IOException, FileNotFoundException, IllegalStateException {
     if (closed) {
       throw new IllegalStateException("Connection closed: " + resource);
     }
-    if (in != null) {
+    if (in != null || channel != null) {
       throw new IllegalStateException("Input already opened: " + resource.toString());
     }
     if (fileAccessed) {
       throw new IllegalStateException("File already accessed: " + resource.toString());
     }
+    ByteBuffer content = getContent();
+    if (content != null) {
+      in = new ByteBufferInputStream(content);
+      return in;
+    }
     File file = getContextFile();
     if (file != null) {
       // Note: non-null from getContextFile means exists.
@@ -218,21 +457,452 @@ public class ServletResourceConnection extends ResourceConnection {
       if (url == null) {
         throw new FileNotFoundException(resource.toString());
       }
-      if (urlConn == null) {
-        urlConn = url.openConnection();
-      }
-      in = urlConn.getInputStream();
-      urlConnInputAccessed = true;
+      in = openUrlInput(url);
     }
     return in;
   }
 
+  /**
+   * Gets the entire content of a small resource as a read-only buffer, shared with other connections through the
+   * content cache of the store.  The buffer is independent of any other caller, and does not need to be released.
+   * Unlike {@link #getInputStream()}, this may be called any number of times.
+   *
+   * @return  the content, positioned at its start, or {@code null} when the
+   *          {@linkplain ServletResourceStore#CONTENT_CACHE_MAX_BYTES_INIT_PARAM content cache} is disabled,
+   *          the resource is larger than {@link ServletResourceStore#CONTENT_CACHE_MAX_LENGTH_INIT_PARAM},
+   *          or the version of the resource cannot be identified
+   *
+   * @throws  FileNotFoundException  when resource doesn't exist
+   */
+  public ByteBuffer getCachedContent() throws IOException, FileNotFoundException, IllegalStateException {
+    if (closed) {
+      throw new IllegalStateException("Connection closed: " + resource);
+    }
+    return getContent();
+  }
+
+  /**
+   * Gets the entire content of this resource from the {@link ContentCache}, reading and caching it when small enough
+   * and not already cached.
+   *
+   * @return  a read-only buffer of the content or {@code null} when the content cache is disabled or this resource is
+   *          too large or its version cannot be identified
+   */
+  private ByteBuffer getContent() throws IOException, FileNotFoundException {
+    ContentCache contentCache = store.contentCache;
+    if (contentCache == null) {
+      return null;
+    }
+    long length = getLength();
+    if (!contentCache.isCacheable(length)) {
+      return null;
+    }
+    long lastModified = getLastModified();
+    if (lastModified == 0) {
+      return null;
+    }
+    MaterializedFileCache.Key key = new MaterializedFileCache.Key(servletPath, lastModified, length);
+    ByteBuffer content = contentCache.get(key);
+    if (content == null) {
+      // Concurrent misses for the same version share a single read
+      content = store.contentFlights.execute(key, () -> {
+        ByteBuffer existing = contentCache.get(key);
+        if (existing != null) {
+          return existing;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        File file = getContextFile();
+        if (file != null) {
+          try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && fileChannel.read(buffer) != -1) {
+              // Read until full or end of file
+            }
+          }
+        } else {
+          URL url = getContextUrl();
+          if (url == null) {
+            throw new FileNotFoundException(resource.toString());
+          }
+          JarResources.Entry entry = getJarEntry();
+          InputStream urlIn;
+          if (entry != null) {
+            urlIn = entry.openStream();
+          } else {
+            metrics.urlOpen(servletPath);
+            urlIn = url.openStream();
+          }
+          try (ReadableByteChannel urlChannel = Channels.newChannel(urlIn)) {
+            while (buffer.hasRemaining() && urlChannel.read(buffer) != -1) {
+              // Read until full or end of stream
+            }
+          }
+        }
+        if (buffer.hasRemaining()) {
+          // Modified while reading, read normally
+          return null;
+        }
+        buffer.flip();
+        ByteBuffer readOnly = buffer.asReadOnlyBuffer();
+        contentCache.put(key, readOnly);
+        return readOnly;
+      });
+      if (content != null) {
+        content = content.duplicate();
+      }
+    }
+    return content;
+  }
+
+  /**
+   * Opens a pre-compressed variant of this resource, found as a sibling with the {@code .br} suffix for
+   * {@link #ENCODING_BROTLI} or the {@code .gz} suffix for {@link #ENCODING_GZIP}.
+   *
+   * <p>A variant is only used when it is not older than this resource and is shorter than this resource, so a
+   * variant left behind by an older version is never served in place of newer content.</p>
+   *
+   * @param  contentEncoding  The content encoding, either {@link #ENCODING_BROTLI} or {@link #ENCODING_GZIP}.
+   *
+   * @return  an open connection to the variant, which the caller must close, or {@code null} when there is no valid
+   *          variant for the encoding
+   *
+   * @throws  FileNotFoundException  when resource doesn't exist
+   */
+  public ServletResourceConnection openVariant(String contentEncoding) throws IOException, FileNotFoundException, IllegalStateException {
+    if (closed) {
+      throw new IllegalStateException("Connection closed: " + resource);
+    }
+    String suffix;
+    if (ENCODING_BROTLI.equals(contentEncoding)) {
+      suffix = ".br";
+    } else if (ENCODING_GZIP.equals(contentEncoding)) {
+      suffix = ".gz";
+    } else {
+      return null;
+    }
+    long length = getLength();
+    long lastModified = getLastModified();
+    if (length == -1 || lastModified == 0) {
+      // Cannot validate the variant
+      return null;
+    }
+    ServletResource variant = getResource().getSibling(suffix);
+    if (variant == null) {
+      return null;
+    }
+    ServletResourceConnection conn = variant.open();
+    boolean valid = false;
+    try {
+      if (conn.exists()) {
+        long variantLength = conn.getLength();
+        long variantLastModified = conn.getLastModified();
+        valid = variantLength != -1
+            && variantLength < length
+            && variantLastModified != 0
+            && variantLastModified >= lastModified;
+      }
+    } finally {
+      if (!valid) {
+        conn.close();
+      }
+    }
+    return valid ? conn : null;
+  }
+
+  /**
+   * Gets the entire content of this resource compressed with gzip, compressing each version only once and sharing
+   * the result with other connections through the gzip cache of the store.  The buffer is independent of any other
+   * caller.  This does not open the input, so may be called any number of times and in combination with any other
+   * method.
+   *
+   * <p>The compressed content is not necessarily shorter than the original; callers should compare with
+   * {@link #getLength()} before choosing to send it.</p>
+   *
+   * @return  the compressed content, positioned at its start, or {@code null} when the
+   *          {@linkplain ServletResourceStore#GZIP_CACHE_MAX_BYTES_INIT_PARAM gzip cache} is disabled,
+   *          the resource is larger than {@link ServletResourceStore#GZIP_CACHE_MAX_LENGTH_INIT_PARAM},
+   *          or the version of the resource cannot be identified
+   *
+   * @throws  FileNotFoundException  when resource doesn't exist
+   */
+  public ByteBuffer getGzipContent() throws IOException, FileNotFoundException, IllegalStateException {
+    if (closed) {
+      throw new IllegalStateException("Connection closed: " + resource);
+    }
+    ContentCache gzipCache = store.gzipCache;
+    if (gzipCache == null) {
+      return null;
+    }
+    long length = getLength();
+    if (!gzipCache.isCacheable(length)) {
+      return null;
+    }
+    long lastModified = getLastModified();
+    if (lastModified == 0) {
+      return null;
+    }
+    MaterializedFileCache.Key key = new MaterializedFileCache.Key(servletPath, lastModified, length);
+    ByteBuffer compressed = gzipCache.get(key);
+    if (compressed == null) {
+      compressed = store.gzipFlights.execute(key, () -> {
+        ByteBuffer existing = gzipCache.get(key);
+        if (existing != null) {
+          return existing;
+        }
+        ByteArrayOutputStream bout = new ByteArrayOutputStream((int) Math.min(length, 8192) + 32);
+        long read;
+        try (
+            InputStream uncompressed = openUncompressedInput();
+            GZIPOutputStream gzipOut = new GZIPOutputStream(bout)
+            ) {
+          read = uncompressed.transferTo(gzipOut);
+        }
+        if (read != length) {
+          // Modified while reading, compress again next time
+          return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bout.size());
+        buffer.put(bout.toByteArray()).flip();
+        ByteBuffer readOnly = buffer.asReadOnlyBuffer();
+        gzipCache.put(key, readOnly);
+        return readOnly;
+      });
+      if (compressed != null) {
+        compressed = compressed.duplicate();
+      }
+    }
+    return compressed;
+  }
+
+  /**
+   * Opens the content to be compressed, independent of {@link #getInputStream()}.  Never uses the
+   * {@link URLConnection} of this connection, which may only provide its input once.
+   */
+  private InputStream openUncompressedInput() throws IOException, FileNotFoundException {
+    ByteBuffer content = getContent();
+    if (content != null) {
+      return new ByteBufferInputStream(content);
+    }
+    File file = getContextFile();
+    if (file != null) {
+      return new FileInputStream(file);
+    }
+    URL url = getContextUrl();
+    if (url == null) {
+      throw new FileNotFoundException(resource.toString());
+    }
+    JarResources.Entry entry = getJarEntry();
+    if (entry != null) {
+      return entry.openStream();
+    }
+    InputStream shared = openMaterializedStream();
+    if (shared != null) {
+      return shared;
+    }
+    metrics.urlOpen(servletPath);
+    return url.openStream();
+  }
+
+  /**
+   * Opens the content of a resource accessed by URL.  Prefers, in order, a slice of its JAR, the shared materialized
+   * copy, even while still being copied, its JAR entry, and finally the URL itself.
+   */
+  private InputStream openUrlInput(URL url) throws IOException {
+    JarResources.Entry entry = getJarEntry();
+    if (entry == null || !entry.isSliceable()) {
+      InputStream shared = openMaterializedStream();
+      if (shared != null) {
+        return shared;
+      }
+    }
+    if (entry != null) {
+      return entry.openStream();
+    }
+    InputStream urlIn = getUrlConnection(url).getInputStream();
+    urlConnInputAccessed = true;
+    return urlIn;
+  }
+
+  /**
+   * Opens a stream over the shared materialized copy of this resource, following the copy while another connection
+   * is still writing it.
+   *
+   * @return  the stream or {@code null} when there is no copy of the current version
+   */
+  private InputStream openMaterializedStream() throws IOException {
+    if (materializedFiles != null) {
+      UrlMetadata metadata = getUrlMetadata();
+      if (metadata.lastModified != 0 && metadata.length != -1) {
+        return materializedFiles.openStream(new MaterializedFileCache.Key(servletPath, metadata.lastModified, metadata.length));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Gets a channel to read the resource content.  This is an alternative to {@link #getInputStream()}, and only one of
+   * the two may be used per connection.
+   *
+   * <p>When the resource is a local file, this is a {@link FileChannel}, which allows the content to be sent without
+   * copying through the Java heap.  Otherwise, the channel wraps the {@link URLConnection} input.</p>
+   *
+   * @see  #transferTo(java.nio.channels.WritableByteChannel)
+   */
+  public ReadableByteChannel getChannel() throws IOException, FileNotFoundException, IllegalStateException {
+    if (closed) {
+      throw new IllegalStateException("Connection closed: " + resource);
+    }
+    if (in != null || channel != null) {
+      throw new IllegalStateException("Input already opened: " + resource.toString());
+    }
+    if (fileAccessed) {
+      throw new IllegalStateException("File already accessed: " + resource.toString());
+    }
+    ByteBuffer content = getContent();
+    if (content != null) {
+      channel = Channels.newChannel(new ByteBufferInputStream(content));
+      return channel;
+    }
+    File file = getContextFile();
+    if (file != null) {
+      // Note: non-null from getContextFile means exists.
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    } else {
+      // Handle as URL
+      URL url = getContextUrl();
+      if (url == null) {
+        throw new FileNotFoundException(resource.toString());
+      }
+      channel = Channels.newChannel(openUrlInput(url));
+    }
+    return channel;
+  }
+
+  /**
+   * Transfers the entire resource content to the given channel.
+   * This opens the input, so neither {@link #getInputStream()} nor {@link #getChannel()} may have been called.
+   *
+   * <p>Local files are transferred with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+   * which the operating system may perform without copying through user space.  Entries stored without compression in
+   * a JAR are transferred the same way, as a slice of the JAR.  Other resources are copied through a pooled direct
+   * buffer.</p>
+   *
+   * @param  target  The channel to write to, which must be in blocking mode.
+   *
+   * @return  the number of bytes transferred
+   */
+  public long transferTo(WritableByteChannel target) throws IOException, FileNotFoundException, IllegalStateException {
+    if (closed) {
+      throw new IllegalStateException("Connection closed: " + resource);
+    }
+    if (in != null || channel != null) {
+      throw new IllegalStateException("Input already opened: " + resource.toString());
+    }
+    if (fileAccessed) {
+      throw new IllegalStateException("File already accessed: " + resource.toString());
+    }
+    ByteBuffer content = getContent();
+    if (content != null) {
+      long total = 0;
+      while (content.hasRemaining()) {
+        total += target.write(content);
+      }
+      return total;
+    }
+    if (getContextFile() == null) {
+      JarResources.Entry entry = getJarEntry();
+      if (entry != null && entry.isSliceable()) {
+        return transferSlice(entry.jar.getChannel(), entry.dataOffset, entry.metadata.length, target);
+      }
+    }
+    ReadableByteChannel src = getChannel();
+    long total = 0;
+    if (src instanceof FileChannel) {
+      FileChannel fileChannel = (FileChannel) src;
+      total = transferSlice(fileChannel, 0, fileChannel.size(), target);
+    } else {
+      total = copy(src, target);
+    }
+    return total;
+  }
+
+  /**
+   * Writes the entire resource content to a response using Servlet non-blocking I/O.  Content is only written while
+   * {@link ServletOutputStream#isReady()}, and the remainder is written from the container's
+   * {@link jakarta.servlet.WriteListener} callbacks, so no thread is held while a slow client catches up.
+   * This opens the input, so neither {@link #getInputStream()} nor {@link #getChannel()} may have been called.
+   *
+   * <p>The request must be in asynchronous mode, and the output stream must not already have a write listener.
+   * This connection is closed when the write finishes, before the returned future completes, so the caller should
+   * then complete its {@link jakarta.servlet.AsyncContext}.</p>
+   *
+   * <p>This works the same when called from a virtual thread, since the calling thread only registers the
+   * listener.</p>
+   *
+   * @param  out  The output stream of a response in asynchronous mode.
+   *
+   * @return  the future number of bytes written
+   *
+   * @throws  IllegalStateException  when the request is not in asynchronous mode
+   */
+  public CompletableFuture<Long> writeAsync(ServletOutputStream out) throws IOException, FileNotFoundException, IllegalStateException {
+    AsyncResourceWriter writer = new AsyncResourceWriter(this, getChannel(), out);
+    // The container calls onWritePossible once registered
+    out.setWriteListener(writer);
+    return writer.getFuture();
+  }
+
+  /**
+   * Transfers a slice of a file channel, without changing its position.
+   *
+   * @return  the number of bytes transferred, which is fewer than requested when the file is shorter
+   */
+  private static long transferSlice(FileChannel src, long position, long count, WritableByteChannel target) throws IOException {
+    long size = src.size();
+    long end = position + count;
+    if (end < 0 || end > size) {
+      // Saturate on overflow
+      end = size;
+    }
+    long total = 0;
+    while (position + total < end) {
+      long transferred = src.transferTo(position + total, end - position - total, target);
+      if (transferred <= 0) {
+        // File truncated while transferring
+        break;
+      }
+      total += transferred;
+    }
+    return total;
+  }
+
+  /**
+   * Copies all remaining content from one channel to another through a pooled direct buffer.
+   *
+   * @return  the number of bytes copied
+   */
+  private static long copy(ReadableByteChannel src, WritableByteChannel target) throws IOException {
+    long total = 0;
+    ByteBuffer buffer = DirectBufferPool.acquire();
+    try {
+      while (src.read(buffer) != -1) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          total += target.write(buffer);
+        }
+        buffer.clear();
+      }
+    } finally {
+      DirectBufferPool.release(buffer);
+    }
+    return total;
+  }
+
   @Override
   public File getFile() throws IOException, FileNotFoundException, IllegalStateException {
     if (closed) {
       throw new IllegalStateException("Connection closed: " + resource);
     }
-    if (in != null) {
+    if (in != null || channel != null) {
       throw new IllegalStateException("Input already opened: " + resource.toString());
     }
     File file = getContextFile();
@@ -241,15 +911,23 @@ public class ServletResourceConnection extends ResourceConnection {
       fileAccessed = true;
       return file;
     } else {
+      if (materialized != null) {
+        return materialized.getFile();
+      }
       if (tempFile == null) {
         // Handle as URL
         URL url = getContextUrl();
         if (url == null) {
           throw new FileNotFoundException(resource.toString());
         }
-        if (urlConn == null) {
-          urlConn = url.openConnection();
+        metrics.materializedFileRequest(servletPath);
+        MaterializedFileCache.Entry entry = getMaterialized(url);
+        if (entry != null) {
+          // Released on close
+          fileAccessed = true;
+          return entry.getFile();
         }
+        URLConnection conn = getUrlConnection(url);
         boolean success = false;
         try {
           if (tempFileContext == null) {
@@ -257,11 +935,14 @@ public class ServletResourceConnection extends ResourceConnection {
                 ScopeEE.Application.TEMPDIR.context(servletContext).get()
             );
           }
+          long startNanos = System.nanoTime();
           tempFile = tempFileContext.createTempFile(ServletResourceConnection.class.getName(), null);
-          try (InputStream urlIn = urlConn.getInputStream()) {
+          File copy = tempFile.getFile();
+          try (InputStream urlIn = conn.getInputStream()) {
             urlConnInputAccessed = true;
-            FileUtils.copyToFile(urlIn, tempFile.getFile());
+            FileUtils.copyToFile(urlIn, copy);
           }
+          metrics.materialize(servletPath, copy.length(), System.nanoTime() - startNanos);
           success = true;
         } finally {
           if (tempFile != null && !success) {
@@ -275,11 +956,196 @@ public class ServletResourceConnection extends ResourceConnection {
     }
   }
 
+  /**
+   * Gets the copy of this resource shared with other connections, materializing it when not already cached.
+   * The copy is released when this connection is closed.
+   *
+   * @return  the shared copy or {@code null} when sharing is disabled or the version of the resource cannot be
+   *          identified
+   */
+  private MaterializedFileCache.Entry getMaterialized(URL url) throws IOException {
+    if (materialized == null && materializedFiles != null) {
+      UrlMetadata metadata = getUrlMetadata();
+      // Only share when the version can be identified
+      if (metadata.lastModified != 0 && metadata.length != -1) {
+        JarResources.Entry entry = getJarEntry();
+        // Copied by a single connection when multiple request the same resource concurrently
+        materialized = materializedFiles.acquire(
+            new MaterializedFileCache.Key(servletPath, metadata.lastModified, metadata.length),
+            out -> {
+              long startNanos = System.nanoTime();
+              InputStream urlIn;
+              if (entry != null) {
+                urlIn = entry.openStream();
+              } else {
+                metrics.urlOpen(servletPath);
+                urlIn = url.openStream();
+              }
+              try (urlIn) {
+                urlIn.transferTo(out);
+              }
+              metrics.materialize(servletPath, metadata.length, System.nanoTime() - startNanos);
+            }
+        );
+      }
+    }
+    return materialized;
+  }
+
+  /**
+   * Gets a channel supporting positional reads, opened once and shared by all range reads on this connection.
+   * Resources that are not local files use their shared materialized copy.
+   *
+   * @return  the channel or {@code null} when positional reads are not available for this resource
+   */
+  private FileChannel getRangeChannel() throws IOException, FileNotFoundException {
+    if (rangeChannel == null) {
+      File file = getContextFile();
+      if (file == null) {
+        // Handle as URL
+        URL url = getContextUrl();
+        if (url == null) {
+          throw new FileNotFoundException(resource.toString());
+        }
+        MaterializedFileCache.Entry entry = getMaterialized(url);
+        if (entry == null) {
+          return null;
+        }
+        file = entry.getFile();
+      }
+      rangeChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+    return rangeChannel;
+  }
+
+  /**
+   * Gets the JAR entry when this resource may be read as a slice of its JAR.
+   *
+   * @return  the entry or {@code null} when a local file or not stored without compression in a JAR
+   */
+  private JarResources.Entry getSliceableJarEntry() throws IOException {
+    if (getContextFile() == null) {
+      JarResources.Entry entry = getJarEntry();
+      if (entry != null && entry.isSliceable()) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private static void checkRange(long offset, long length) throws IllegalArgumentException {
+    if (offset < 0) {
+      throw new IllegalArgumentException("offset < 0: " + offset);
+    }
+    if (length < 0) {
+      throw new IllegalArgumentException("length < 0: " + length);
+    }
+  }
+
+  /**
+   * Opens an input stream over a range of the resource content, such as to serve an HTTP <code>Range</code> request.
+   * Unlike {@link #getInputStream()}, any number of ranges may be read from a single connection.  All streams are
+   * closed when this connection is closed.
+   *
+   * <p>Local files, entries stored without compression in a JAR, and resources with a shared materialized copy, are
+   * read with positional reads, so the cost is proportional to the length of the range.  Other resources are read from the start, skipping to the offset.</p>
+   *
+   * @param  offset  The position of the first byte.
+   * @param  length  The maximum number of bytes.  The stream ends early when the resource is shorter.
+   */
+  public InputStream getInputStream(long offset, long length) throws IOException, FileNotFoundException, IllegalStateException, IllegalArgumentException {
+    if (closed) {
+      throw new IllegalStateException("Connection closed: " + resource);
+    }
+    checkRange(offset, length);
+    JarResources.Entry entry = getSliceableJarEntry();
+    if (entry != null) {
+      long entryLength = entry.metadata.length;
+      return new PositionalInputStream(
+          entry.jar.getChannel(),
+          entry.dataOffset + Math.min(offset, entryLength),
+          Math.min(length, entryLength - Math.min(offset, entryLength))
+      );
+    }
+    FileChannel fileChannel = getRangeChannel();
+    if (fileChannel != null) {
+      return new PositionalInputStream(fileChannel, offset, length);
+    }
+    InputStream urlIn = getContextUrl().openStream();
+    metrics.urlOpen(servletPath);
+    if (rangeStreams == null) {
+      rangeStreams = new ArrayList<>();
+    }
+    rangeStreams.add(urlIn);
+    // Skip to the offset, ending early when the resource is shorter, the same as positional reads
+    long remaining = offset;
+    while (remaining > 0) {
+      long skipped = urlIn.skip(remaining);
+      if (skipped <= 0) {
+        // skip may return zero before the end, confirm with a read
+        if (urlIn.read() == -1) {
+          return InputStream.nullInputStream();
+        }
+        skipped = 1;
+      }
+      remaining -= skipped;
+    }
+    return new BoundedInputStream(urlIn, length);
+  }
+
+  /**
+   * Transfers a range of the resource content to the given channel, such as to serve an HTTP <code>Range</code>
+   * request.  Any number of ranges may be transferred from a single connection.
+   *
+   * @param  offset  The position of the first byte.
+   * @param  length  The maximum number of bytes.  Fewer are transferred when the resource is shorter.
+   * @param  target  The channel to write to, which must be in blocking mode.
+   *
+   * @return  the number of bytes transferred
+   *
+   * @see  #getInputStream(long, long)
+   */
+  public long transferTo(long offset, long length, WritableByteChannel target) throws IOException, FileNotFoundException, IllegalStateException, IllegalArgumentException {
+    if (closed) {
+      throw new IllegalStateException("Connection closed: " + resource);
+    }
+    checkRange(offset, length);
+    JarResources.Entry entry = getSliceableJarEntry();
+    if (entry != null) {
+      long entryLength = entry.metadata.length;
+      if (offset >= entryLength) {
+        return 0;
+      }
+      return transferSlice(entry.jar.getChannel(), entry.dataOffset + offset, Math.min(length, entryLength - offset), target);
+    }
+    FileChannel fileChannel = getRangeChannel();
+    long total = 0;
+    if (fileChannel != null) {
+      total = transferSlice(fileChannel, offset, length, target);
+    } else {
+      try (ReadableByteChannel rangeIn = Channels.newChannel(getInputStream(offset, length))) {
+        total = copy(rangeIn, target);
+      }
+    }
+    return total;
+  }
+
   @Override
   public void close() throws IOException {
     if (in != null) {
       in.close();
     }
+    if (channel != null) {
+      channel.close();
+    }
+    if (rangeStreams != null) {
+      for (InputStream rangeIn : rangeStreams) {
+        rangeIn.close();
+      }
+    }
+    if (rangeChannel != null) {
+      rangeChannel.close();
+    }
     if (urlConn != null && !urlConnInputAccessed) {
       // Close input if not accessed to let underlying URLConnection close.
       try (InputStream urlIn = urlConn.getInputStream()) {
@@ -292,6 +1158,10 @@ public class ServletResourceConnection extends ResourceConnection {
     //   tempFile.close();
     //   tempFile = null;
     // }
+    if (materialized != null) {
+      materializedFiles.release(materialized);
+      materialized = null;
+    }
     if (tempFileContext != null) {
       tempFileContext.close();
     }
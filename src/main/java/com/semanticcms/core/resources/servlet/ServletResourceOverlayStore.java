@@ -0,0 +1,222 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.semanticcms.core.resources.servlet;
+
+import com.aoapps.net.Path;
+import com.semanticcms.core.resources.ResourceStore;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Combines several {@link ServletResourceStore} in order, with each resource found in the first store that contains
+ * it.  This allows, for example, site-specific overrides to be stacked on top of default content.
+ *
+ * <p>The store that provides each path is remembered, so repeated lookups do not need to ask each store in turn.
+ * Each remembered lookup is kept only as long as every store that was asked would itself have reused its own lookup,
+ * and is discarded as soon as any of those stores is
+ * {@linkplain ServletResourceStore#invalidate(com.aoapps.net.Path) invalidated} or, when
+ * {@linkplain ServletResourceStore#WATCH_INIT_PARAM watching}, sees a change.  Lookups in uncached stores are never
+ * remembered.</p>
+ *
+ * <p>The overlay must be {@linkplain #close() closed} when no longer used, to stop receiving changes from its
+ * stores.</p>
+ */
+public class ServletResourceOverlayStore implements ResourceStore, AutoCloseable {
+
+  private static final Logger logger = Logger.getLogger(ServletResourceOverlayStore.class.getName());
+
+  /**
+   * The number of paths remembered before arbitrary paths are forgotten.
+   */
+  private static final int MAX_ENTRIES = 10000;
+
+  /**
+   * The store that provides a path, until the given time.
+   */
+  private static final class Entry {
+
+    /**
+     * The index of the providing store or {@code -1} when no store contains the path.
+     */
+    private final int layer;
+
+    private final long resolvedNanos;
+    private final long ttlNanos;
+
+    private Entry(int layer, long resolvedNanos, long ttlNanos) {
+      this.layer = layer;
+      this.resolvedNanos = resolvedNanos;
+      this.ttlNanos = ttlNanos;
+    }
+
+    private boolean isFresh() {
+      return ttlNanos == Long.MAX_VALUE || System.nanoTime() - resolvedNanos < ttlNanos;
+    }
+  }
+
+  private final ServletResourceStore[] layers;
+  private final ConcurrentMap<Path, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Incremented on every invalidation, so lookups performed concurrently with a change are not remembered.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  private final Consumer<String> invalidationListener = this::invalidate;
+
+  /**
+   * @param  layers  The stores, in order of precedence.
+   */
+  public ServletResourceOverlayStore(List<? extends ServletResourceStore> layers) {
+    if (layers.isEmpty()) {
+      throw new IllegalArgumentException("No stores");
+    }
+    this.layers = layers.toArray(new ServletResourceStore[layers.size()]);
+    for (ServletResourceStore layer : this.layers) {
+      layer.addInvalidationListener(invalidationListener);
+    }
+  }
+
+  /**
+   * @param  layers  The stores, in order of precedence.
+   */
+  public ServletResourceOverlayStore(ServletResourceStore ... layers) {
+    this(List.of(layers));
+  }
+
+  /**
+   * Gets the stores, in order of precedence.
+   */
+  public List<ServletResourceStore> getLayers() {
+    return List.of(layers);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder toString = new StringBuilder("overlay:");
+    for (int i = 0; i < layers.length; i++) {
+      if (i > 0) {
+        toString.append(',');
+      }
+      toString.append(layers[i]);
+    }
+    return toString.toString();
+  }
+
+  @Override
+  public boolean isAvailable() {
+    for (ServletResourceStore layer : layers) {
+      if (layer.isAvailable()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the resource from the first store that contains it.
+   *
+   * @return  the resource of the providing store, or of the first store when no store contains the path
+   */
+  @Override
+  public ServletResource getResource(Path path) {
+    Entry entry = entries.get(path);
+    if (entry != null && entry.isFresh()) {
+      return layers[Math.max(0, entry.layer)].getResource(path);
+    }
+    long startGeneration = generation.get();
+    long ttlNanos = Long.MAX_VALUE;
+    for (int i = 0; i < layers.length; i++) {
+      ServletResource resource = layers[i].getResource(path);
+      boolean exists;
+      try (ServletResourceConnection conn = resource.open()) {
+        exists = conn.exists();
+      } catch (IOException e) {
+        // Let the caller see the error when opened
+        logger.log(Level.FINE, "Unable to check resource: " + resource, e);
+        return resource;
+      }
+      ttlNanos = Math.min(ttlNanos, layers[i].getLookupTtlNanos(path));
+      if (exists) {
+        remember(path, i, ttlNanos, startGeneration);
+        return resource;
+      }
+    }
+    remember(path, -1, ttlNanos, startGeneration);
+    return layers[0].getResource(path);
+  }
+
+  private void remember(Path path, int layer, long ttlNanos, long startGeneration) {
+    if (ttlNanos > 0) {
+      if (entries.size() >= MAX_ENTRIES) {
+        // Make room by removing arbitrary entries
+        Iterator<Path> iter = entries.keySet().iterator();
+        while (entries.size() >= MAX_ENTRIES && iter.hasNext()) {
+          iter.next();
+          iter.remove();
+        }
+      }
+      entries.put(path, new Entry(layer, System.nanoTime(), ttlNanos));
+      // Discard when invalidated while resolving
+      if (generation.get() != startGeneration) {
+        entries.remove(path);
+      }
+    } else {
+      entries.remove(path);
+    }
+  }
+
+  /**
+   * Forgets the given path and any path beneath it, or all paths when {@code null}.
+   */
+  private void invalidate(String relativePath) {
+    generation.incrementAndGet();
+    if (relativePath == null) {
+      entries.clear();
+    } else {
+      String dirPrefix = relativePath.endsWith("/") ? relativePath : (relativePath + '/');
+      entries.keySet().removeIf(path -> {
+        String pathStr = path.toString();
+        return pathStr.equals(relativePath) || pathStr.startsWith(dirPrefix);
+      });
+    }
+  }
+
+  /**
+   * Stops receiving changes from the stores and forgets all remembered lookups.
+   */
+  @Override
+  public void close() {
+    for (ServletResourceStore layer : layers) {
+      layer.removeInvalidationListener(invalidationListener);
+    }
+    entries.clear();
+  }
+}
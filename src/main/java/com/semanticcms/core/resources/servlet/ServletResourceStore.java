@@ -23,7 +23,7 @@
 
 package com.semanticcms.core.resources.servlet;
 
-import com.aoapps.hodgepodge.util.Tuple2;
+import com.aoapps.lang.validation.ValidationException;
 import com.aoapps.net.Path;
 import com.aoapps.servlet.ServletContextCache;
 import com.aoapps.servlet.attribute.ScopeEE;
@@ -32,8 +32,41 @@ import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * Accesses resources in the local {@link ServletContext}.
@@ -50,27 +83,299 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class ServletResourceStore implements ResourceStore {
 
+  private static final Logger logger = Logger.getLogger(ServletResourceStore.class.getName());
+
   /**
    * Initializes the Servlet resource store during {@linkplain ServletContextListener application start-up}.
    */
   @WebListener("Initializes the Servlet resource store during application start-up.")
   public static class Initializer implements ServletContextListener {
+
+    private ForkJoinPool indexPool;
+
     @Override
     public void contextInitialized(ServletContextEvent event) {
-      getInstances(event.getServletContext());
+      ServletContext servletContext = event.getServletContext();
+      getInstances(servletContext);
+      List<String> preIndex = InitParameters.getList(servletContext, PRE_INDEX_INIT_PARAM);
+      if (!preIndex.isEmpty()) {
+        List<ServletResourceStore> stores = new ArrayList<>(preIndex.size());
+        for (String pathStr : preIndex) {
+          try {
+            stores.add(getInstance(servletContext, Path.valueOf(pathStr)));
+          } catch (ValidationException e) {
+            throw new IllegalArgumentException("Invalid context init parameter: " + PRE_INDEX_INIT_PARAM + "=" + pathStr, e);
+          }
+        }
+        // Indexed in the background, so start-up is not delayed
+        ForkJoinPool pool = new ForkJoinPool();
+        indexPool = pool;
+        CompletableFuture<?>[] builds = new CompletableFuture<?>[stores.size()];
+        for (int i = 0; i < builds.length; i++) {
+          ServletResourceStore store = stores.get(i);
+          builds[i] = CompletableFuture.runAsync(() -> store.buildIndex(pool), pool);
+        }
+        CompletableFuture.allOf(builds).whenComplete((result, t) -> pool.shutdown());
+      }
     }
 
     @Override
     public void contextDestroyed(ServletContextEvent event) {
-      // Do nothing
+      if (indexPool != null) {
+        indexPool.shutdownNow();
+        indexPool = null;
+      }
+      Instances instances = getInstances(event.getServletContext());
+      for (ServletResourceStore store : instances.cached.values()) {
+        store.destroy();
+      }
+      for (ServletResourceStore store : instances.uncached.values()) {
+        store.destroy();
+      }
+      instances.jars.close();
     }
   }
 
-  private static final ScopeEE.Application.Attribute<ConcurrentMap<Tuple2<Path, Boolean>, ServletResourceStore>> INSTANCES_APPLICATION_ATTRIBUTE =
+  /**
+   * The context init parameter that sets the maximum total bytes of resources, not available as local files, that
+   * are kept materialized to temporary files and shared between connections.
+   * Defaults to {@link #DEFAULT_MATERIALIZED_CACHE_MAX_BYTES}.  A value of zero disables sharing, and each call to
+   * {@link ServletResourceConnection#getFile()} will create its own temporary file.
+   */
+  public static final String MATERIALIZED_CACHE_MAX_BYTES_INIT_PARAM = ServletResourceStore.class.getName() + ".materializedCache.maxBytes";
+
+  /**
+   * The default value for {@link #MATERIALIZED_CACHE_MAX_BYTES_INIT_PARAM}.
+   */
+  public static final long DEFAULT_MATERIALIZED_CACHE_MAX_BYTES = 128L * 1024 * 1024;
+
+  /**
+   * The context init parameter that sets how long, in milliseconds, a cached store remembers that a resource was not
+   * found.  Defaults to {@link #DEFAULT_NEGATIVE_CACHE_TTL}.  A value of zero disables the negative cache.
+   *
+   * <p>This only applies to cached stores.  Stores created with <code>cached = false</code> always query the
+   * {@link ServletContext}, and {@linkplain #ADAPTIVE_INIT_PARAM adaptive} stores cache missing paths themselves.</p>
+   *
+   * @see  #invalidate(com.aoapps.net.Path)
+   * @see  #invalidateAll()
+   */
+  public static final String NEGATIVE_CACHE_TTL_INIT_PARAM = ServletResourceStore.class.getName() + ".negativeCache.ttl";
+
+  /**
+   * The default value for {@link #NEGATIVE_CACHE_TTL_INIT_PARAM}.
+   */
+  public static final long DEFAULT_NEGATIVE_CACHE_TTL = 1000;
+
+  /**
+   * The context init parameter that sets the maximum number of missing resources remembered per store, including the
+   * paths remembered to have no file when {@linkplain #WATCH_INIT_PARAM watching}.  Defaults to {@link #DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES}.
+   */
+  public static final String NEGATIVE_CACHE_MAX_ENTRIES_INIT_PARAM = ServletResourceStore.class.getName() + ".negativeCache.maxEntries";
+
+  /**
+   * The default value for {@link #NEGATIVE_CACHE_MAX_ENTRIES_INIT_PARAM}.
+   */
+  public static final int DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES = 10000;
+
+  /**
+   * The context init parameter that enables watching the file system for changes.  Defaults to {@code false}.
+   *
+   * <p>When enabled, and the store's path resolves to a local directory (such as in an exploded deployment), cached
+   * stores watch the directory tree for changes.  Files are then looked-up directly in the directory and their
+   * attributes cached until changed, making changes visible immediately instead of after
+   * {@link ServletContextCache#REFRESH_INTERVAL}.  Resources that are not local files, such as those in JAR files,
+   * continue to use the periodically refreshed {@link ServletContextCache}.</p>
+   *
+   * <p>This only applies to cached stores.</p>
+   */
+  public static final String WATCH_INIT_PARAM = ServletResourceStore.class.getName() + ".watch";
+
+  /**
+   * The context init parameter listing the paths of cached stores to index during application start-up, separated
+   * by commas and/or whitespace.  Not set by default.
+   *
+   * <p>Each store's resource tree is walked in parallel, in the background, and the metadata of resources that are not
+   * local files, such as those in JAR files, is kept for the life of the application.  When the store is also
+   * {@linkplain #WATCH_INIT_PARAM watching} its directory, the attributes of local files are warmed, too.</p>
+   */
+  public static final String PRE_INDEX_INIT_PARAM = ServletResourceStore.class.getName() + ".preIndex";
+
+  /**
+   * The context init parameter that controls registering each store's {@link ServletResourceStoreMXBean} with the
+   * platform MBean server.  Defaults to {@code true}.
+   *
+   * @see  #getMetrics()
+   */
+  public static final String JMX_INIT_PARAM = ServletResourceStore.class.getName() + ".jmx";
+
+  /**
+   * The context init parameter that limits how many resources have their content digest remembered for
+   * {@link ServletResourceConnection#getETag()}.  Defaults to {@link #DEFAULT_DIGEST_CACHE_MAX_ENTRIES}.  A value of
+   * zero disables entity tags.
+   */
+  public static final String DIGEST_CACHE_MAX_ENTRIES_INIT_PARAM = ServletResourceStore.class.getName() + ".digestCache.maxEntries";
+
+  /**
+   * The default value for {@link #DIGEST_CACHE_MAX_ENTRIES_INIT_PARAM}.
+   */
+  public static final int DEFAULT_DIGEST_CACHE_MAX_ENTRIES = 10000;
+
+  /**
+   * The context init parameter that controls resolving <code>jar:file:</code> resources, such as
+   * <code>META-INF/resources</code> in <code>WEB-INF/lib</code>, directly against a shared {@link java.util.jar.JarFile}
+   * instead of through {@link java.net.JarURLConnection}.  Defaults to {@code true}.
+   */
+  public static final String JAR_INDEX_INIT_PARAM = ServletResourceStore.class.getName() + ".jarIndex";
+
+  /**
+   * The context init parameter that limits how many {@link ServletResource} are kept for reuse by
+   * {@link #getResource(com.aoapps.net.Path)}.  Approximately the least recently used resources are discarded once full.
+   * Defaults to {@link #DEFAULT_RESOURCE_CACHE_MAX_ENTRIES}.  A value of zero disables reuse, and each call creates a
+   * new resource.
+   */
+  public static final String RESOURCE_CACHE_MAX_ENTRIES_INIT_PARAM = ServletResourceStore.class.getName() + ".resourceCache.maxEntries";
+
+  /**
+   * The default value for {@link #RESOURCE_CACHE_MAX_ENTRIES_INIT_PARAM}.
+   */
+  public static final int DEFAULT_RESOURCE_CACHE_MAX_ENTRIES = 10000;
+
+  /**
+   * The context init parameter that sets a directory where materialized copies and content digests are kept across
+   * restarts.  Each store uses its own subdirectory.  When not set, copies are kept in temporary files and discarded
+   * on shutdown.
+   *
+   * <p>On start-up, persisted entries are revalidated against their sources in the background, and any that are no
+   * longer current are removed.  The directory must not be shared by more than one running application.</p>
+   */
+  public static final String PERSISTENT_CACHE_DIRECTORY_INIT_PARAM = ServletResourceStore.class.getName() + ".persistentCache.directory";
+
+  /**
+   * The context init parameter that switches cached stores from {@link ServletContextCache} to caching each path
+   * for a time adapted to how often it is observed to change.  Paths found changed are looked-up directly until
+   * stable, while stable paths, such as the content of JAR files, are cached for up to
+   * {@link #ADAPTIVE_MAX_STALENESS_INIT_PARAM}.  Defaults to {@code false}.
+   *
+   * <p>Has no effect on stores {@linkplain #WATCH_INIT_PARAM watching} their directory, nor on uncached stores.</p>
+   */
+  public static final String ADAPTIVE_INIT_PARAM = ServletResourceStore.class.getName() + ".adaptive";
+
+  /**
+   * The context init parameter that bounds, in milliseconds, how long a path may be cached in
+   * {@linkplain #ADAPTIVE_INIT_PARAM adaptive} mode.  Defaults to {@link #DEFAULT_ADAPTIVE_MAX_STALENESS}.
+   */
+  public static final String ADAPTIVE_MAX_STALENESS_INIT_PARAM = ServletResourceStore.class.getName() + ".adaptive.maxStaleness";
+
+  /**
+   * The default value for {@link #ADAPTIVE_MAX_STALENESS_INIT_PARAM}.
+   */
+  public static final long DEFAULT_ADAPTIVE_MAX_STALENESS = 60L * 1000;
+
+  /**
+   * The context init parameter that sets the maximum number of paths tracked per store in
+   * {@linkplain #ADAPTIVE_INIT_PARAM adaptive} mode.  The least recently used paths are forgotten once full.
+   * Defaults to {@link #DEFAULT_ADAPTIVE_MAX_ENTRIES}.
+   */
+  public static final String ADAPTIVE_MAX_ENTRIES_INIT_PARAM = ServletResourceStore.class.getName() + ".adaptive.maxEntries";
+
+  /**
+   * The default value for {@link #ADAPTIVE_MAX_ENTRIES_INIT_PARAM}.
+   */
+  public static final int DEFAULT_ADAPTIVE_MAX_ENTRIES = 10000;
+
+  /**
+   * The context init parameter that sets the total size, in bytes, of the in-memory content of small resources kept by
+   * each store.  Content is kept in direct buffers, outside of the Java heap.  Defaults to
+   * {@link #DEFAULT_CONTENT_CACHE_MAX_BYTES}, which disables the cache.
+   *
+   * @see  #CONTENT_CACHE_MAX_LENGTH_INIT_PARAM
+   */
+  public static final String CONTENT_CACHE_MAX_BYTES_INIT_PARAM = ServletResourceStore.class.getName() + ".contentCache.maxBytes";
+
+  /**
+   * The default value for {@link #CONTENT_CACHE_MAX_BYTES_INIT_PARAM}.
+   */
+  public static final long DEFAULT_CONTENT_CACHE_MAX_BYTES = 0;
+
+  /**
+   * The context init parameter that sets the maximum length, in bytes, of a resource kept in the
+   * {@linkplain #CONTENT_CACHE_MAX_BYTES_INIT_PARAM content cache}.  Defaults to
+   * {@link #DEFAULT_CONTENT_CACHE_MAX_LENGTH}.
+   */
+  public static final String CONTENT_CACHE_MAX_LENGTH_INIT_PARAM = ServletResourceStore.class.getName() + ".contentCache.maxLength";
+
+  /**
+   * The default value for {@link #CONTENT_CACHE_MAX_LENGTH_INIT_PARAM}.
+   */
+  public static final int DEFAULT_CONTENT_CACHE_MAX_LENGTH = 64 * 1024;
+
+  /**
+   * The context init parameter that sets the total size, in bytes, of gzip-compressed content kept in memory by each
+   * store, so each version of a resource is only compressed once.  Defaults to
+   * {@link #DEFAULT_GZIP_CACHE_MAX_BYTES}, which disables the cache.
+   *
+   * @see  ServletResourceConnection#getGzipContent()
+   * @see  #GZIP_CACHE_MAX_LENGTH_INIT_PARAM
+   */
+  public static final String GZIP_CACHE_MAX_BYTES_INIT_PARAM = ServletResourceStore.class.getName() + ".gzipCache.maxBytes";
+
+  /**
+   * The default value for {@link #GZIP_CACHE_MAX_BYTES_INIT_PARAM}.
+   */
+  public static final long DEFAULT_GZIP_CACHE_MAX_BYTES = 0;
+
+  /**
+   * The context init parameter that sets the maximum length, in bytes, of a resource compressed by the
+   * {@linkplain #GZIP_CACHE_MAX_BYTES_INIT_PARAM gzip cache}.  Defaults to {@link #DEFAULT_GZIP_CACHE_MAX_LENGTH}.
+   */
+  public static final String GZIP_CACHE_MAX_LENGTH_INIT_PARAM = ServletResourceStore.class.getName() + ".gzipCache.maxLength";
+
+  /**
+   * The default value for {@link #GZIP_CACHE_MAX_LENGTH_INIT_PARAM}.
+   */
+  public static final int DEFAULT_GZIP_CACHE_MAX_LENGTH = 1024 * 1024;
+
+  /**
+   * The context init parameter that sets the maximum number of concurrent lookups performed by
+   * {@link #statAll(Collection)} for each store.  Defaults to {@link #DEFAULT_BULK_MAX_CONCURRENCY}.
+   */
+  public static final String BULK_MAX_CONCURRENCY_INIT_PARAM = ServletResourceStore.class.getName() + ".bulk.maxConcurrency";
+
+  /**
+   * The default value for {@link #BULK_MAX_CONCURRENCY_INIT_PARAM}.
+   */
+  public static final int DEFAULT_BULK_MAX_CONCURRENCY = 16;
+
+  /**
+   * The context init parameter that allows resources to be
+   * {@linkplain ServletResource#dispatch(jakarta.servlet.ServletRequest, jakarta.servlet.ServletResponse) dispatched}
+   * to the container instead of being copied to the response.  Defaults to {@code false}.
+   *
+   * <p>Resources within <code>/WEB-INF/</code> or <code>/META-INF/</code> are never dispatched.</p>
+   *
+   * @see  ServletResource#isDispatchable()
+   */
+  public static final String DISPATCH_INIT_PARAM = ServletResourceStore.class.getName() + ".dispatch";
+
+  /**
+   * The stores of an application, with separate maps by use of the cache so lookups do not allocate a compound key.
+   */
+  private static final class Instances {
+
+    private final ConcurrentMap<Path, ServletResourceStore> cached = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Path, ServletResourceStore> uncached = new ConcurrentHashMap<>();
+
+    /**
+     * The JARs shared by all stores of the application.
+     */
+    private final JarResources jars = new JarResources();
+  }
+
+  private static final ScopeEE.Application.Attribute<Instances> INSTANCES_APPLICATION_ATTRIBUTE =
       ScopeEE.APPLICATION.attribute(ServletResourceStore.class.getName() + ".instances");
 
-  private static ConcurrentMap<Tuple2<Path, Boolean>, ServletResourceStore> getInstances(ServletContext servletContext) {
-    return INSTANCES_APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new ConcurrentHashMap<>());
+  private static Instances getInstances(ServletContext servletContext) {
+    return INSTANCES_APPLICATION_ATTRIBUTE.context(servletContext).computeIfAbsent(name -> new Instances());
   }
 
   /**
@@ -93,15 +398,12 @@ public class ServletResourceStore implements ResourceStore {
       }
     }
 
-    ConcurrentMap<Tuple2<Path, Boolean>, ServletResourceStore> instances = getInstances(servletContext);
-    Tuple2<Path, Boolean> key = new Tuple2<>(path, cached);
-    ServletResourceStore store = instances.get(key);
+    Instances instances = getInstances(servletContext);
+    ConcurrentMap<Path, ServletResourceStore> stores = cached ? instances.cached : instances.uncached;
+    ServletResourceStore store = stores.get(path);
     if (store == null) {
-      store = new ServletResourceStore(servletContext, path, cached);
-      ServletResourceStore existing = instances.putIfAbsent(key, store);
-      if (existing != null) {
-        store = existing;
-      }
+      // Created at most once, since registers with JMX and may start a directory watcher
+      store = stores.computeIfAbsent(path, p -> new ServletResourceStore(servletContext, p, cached));
     }
     return store;
   }
@@ -120,12 +422,413 @@ public class ServletResourceStore implements ResourceStore {
   final String prefix;
   final ServletContextCache cache;
 
+  final ServletResourceStoreMetrics metrics;
+
+  /**
+   * The directory kept across restarts or {@code null} when disabled.
+   */
+  final PersistentCache persistentCache;
+
+  /**
+   * The shared materialized files or {@code null} when disabled.
+   */
+  final MaterializedFileCache materializedFiles;
+
+  /**
+   * Allows resources to be dispatched to the container.
+   */
+  final boolean dispatch;
+
+  /**
+   * The in-memory content of small resources or {@code null} when disabled.
+   */
+  final ContentCache contentCache;
+
+  /**
+   * Reads each version once when its content is missed concurrently.
+   */
+  final SingleFlight<MaterializedFileCache.Key, ByteBuffer> contentFlights = new SingleFlight<>();
+
+  /**
+   * The gzip-compressed content of resources or {@code null} when disabled.
+   */
+  final ContentCache gzipCache;
+
+  /**
+   * Compresses each version once when requested concurrently.
+   */
+  final SingleFlight<MaterializedFileCache.Key, ByteBuffer> gzipFlights = new SingleFlight<>();
+
+  /**
+   * The time, in nanoseconds, missing resources are remembered or {@code 0} when not remembered.
+   */
+  private final long negativeTtlNanos;
+
+  /**
+   * Notified when paths are invalidated, with the path relative to this store or {@code null} for all paths.
+   */
+  private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * The remembered directory listings or {@code null} when not cached.
+   */
+  private final DirectoryListings listings;
+
+  /**
+   * Performs concurrent lookups for {@link #statAll(Collection)}.
+   */
+  private final BulkResolver bulkResolver;
+
+  /**
+   * The recently missing resources or {@code null} when disabled.
+   */
+  final NegativeLookupCache negativeLookups;
+
+  /**
+   * The adaptive lookups or {@code null} when not adaptive.
+   */
+  final AdaptiveFreshness adaptive;
+
+  /**
+   * The watched local directory or {@code null} when not watching.
+   */
+  final WatchedDirectory watchedDirectory;
+
+  /**
+   * The JARs resolved directly or {@code null} when disabled.
+   */
+  final JarResources jars;
+
+  /**
+   * The remembered content digests or {@code null} when disabled.
+   */
+  final DigestCache digests;
+
+  /**
+   * The index built during start-up or {@code null} when not indexed.
+   */
+  volatile ResourceIndex index;
+
+  /**
+   * The resources kept for reuse or {@code null} when disabled.
+   */
+  private final ResourceCache resources;
+
+  private final SingleFlight<String, UrlMetadata> urlMetadataFlights = new SingleFlight<>();
+
+  private final ObjectName objectName;
+
   private ServletResourceStore(ServletContext servletContext, Path path, boolean cached) {
     this.servletContext = servletContext;
     this.path = path;
     String pathStr = path.toString();
     this.prefix = "/".equals(pathStr) ? "" : pathStr;
-    this.cache = cached ? ServletContextCache.getInstance(servletContext) : null;
+    boolean watch = cached && InitParameters.getBoolean(servletContext, WATCH_INIT_PARAM, false);
+    this.adaptive = (cached && !watch && InitParameters.getBoolean(servletContext, ADAPTIVE_INIT_PARAM, false))
+        ? new AdaptiveFreshness(
+            InitParameters.getLong(servletContext, ADAPTIVE_MAX_STALENESS_INIT_PARAM, DEFAULT_ADAPTIVE_MAX_STALENESS),
+            InitParameters.getInt(servletContext, ADAPTIVE_MAX_ENTRIES_INIT_PARAM, DEFAULT_ADAPTIVE_MAX_ENTRIES)
+        )
+        : null;
+    // Adaptive mode looks-up directly when not cached itself
+    this.cache = (cached && adaptive == null) ? ServletContextCache.getInstance(servletContext) : null;
+    this.metrics = new ServletResourceStoreMetrics(this);
+    int resourcesMaxEntries = InitParameters.getInt(servletContext, RESOURCE_CACHE_MAX_ENTRIES_INIT_PARAM, DEFAULT_RESOURCE_CACHE_MAX_ENTRIES);
+    this.resources = (resourcesMaxEntries == 0) ? null : new ResourceCache(this, resourcesMaxEntries);
+    String persistentDir = servletContext.getInitParameter(PERSISTENT_CACHE_DIRECTORY_INIT_PARAM);
+    this.persistentCache = (persistentDir == null || persistentDir.isBlank())
+        ? null
+        : openPersistentCache(new File(persistentDir.trim()), cached);
+    long materializedMaxBytes = InitParameters.getLong(
+        servletContext,
+        MATERIALIZED_CACHE_MAX_BYTES_INIT_PARAM,
+        DEFAULT_MATERIALIZED_CACHE_MAX_BYTES
+    );
+    this.materializedFiles = (materializedMaxBytes == 0) ? null : new MaterializedFileCache(servletContext, materializedMaxBytes, persistentCache);
+    this.dispatch = InitParameters.getBoolean(servletContext, DISPATCH_INIT_PARAM, false);
+    long contentMaxBytes = InitParameters.getLong(servletContext, CONTENT_CACHE_MAX_BYTES_INIT_PARAM, DEFAULT_CONTENT_CACHE_MAX_BYTES);
+    this.contentCache = (contentMaxBytes == 0) ? null : new ContentCache(
+        contentMaxBytes,
+        InitParameters.getInt(servletContext, CONTENT_CACHE_MAX_LENGTH_INIT_PARAM, DEFAULT_CONTENT_CACHE_MAX_LENGTH)
+    );
+    long gzipMaxBytes = InitParameters.getLong(servletContext, GZIP_CACHE_MAX_BYTES_INIT_PARAM, DEFAULT_GZIP_CACHE_MAX_BYTES);
+    this.gzipCache = (gzipMaxBytes == 0) ? null : new ContentCache(
+        gzipMaxBytes,
+        InitParameters.getInt(servletContext, GZIP_CACHE_MAX_LENGTH_INIT_PARAM, DEFAULT_GZIP_CACHE_MAX_LENGTH)
+    );
+    this.listings = cached ? new DirectoryListings() : null;
+    this.bulkResolver = new BulkResolver(
+        this,
+        Math.max(1, InitParameters.getInt(servletContext, BULK_MAX_CONCURRENCY_INIT_PARAM, DEFAULT_BULK_MAX_CONCURRENCY))
+    );
+    long negativeTtl = (cache != null) ? InitParameters.getLong(servletContext, NEGATIVE_CACHE_TTL_INIT_PARAM, DEFAULT_NEGATIVE_CACHE_TTL) : 0;
+    this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtl);
+    this.negativeLookups = (negativeTtl == 0) ? null : new NegativeLookupCache(
+        negativeTtl,
+        InitParameters.getInt(servletContext, NEGATIVE_CACHE_MAX_ENTRIES_INIT_PARAM, DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES)
+    );
+    this.jars = InitParameters.getBoolean(servletContext, JAR_INDEX_INIT_PARAM, true) ? getInstances(servletContext).jars : null;
+    int digestMaxEntries = InitParameters.getInt(servletContext, DIGEST_CACHE_MAX_ENTRIES_INIT_PARAM, DEFAULT_DIGEST_CACHE_MAX_ENTRIES);
+    this.digests = (digestMaxEntries == 0) ? null : new DigestCache(this, digestMaxEntries);
+    // Started last, since calls back to this store from its thread
+    this.watchedDirectory = watch ? watchDirectory() : null;
+    this.objectName = InitParameters.getBoolean(servletContext, JMX_INIT_PARAM, true)
+        ? registerMBean(cached)
+        : null;
+    if (persistentCache != null) {
+      if (materializedFiles == null) {
+        // Copies are never used
+        persistentCache.removeFiles();
+      }
+      ForkJoinPool.commonPool().execute(this::revalidatePersistentCache);
+    }
+  }
+
+  /**
+   * Opens the subdirectory of the persistent cache for this store.
+   *
+   * @return  the cache or {@code null} when unable to open
+   */
+  private PersistentCache openPersistentCache(File dir, boolean cached) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(path.toString().getBytes(StandardCharsets.UTF_8));
+      return PersistentCache.open(new File(
+          dir,
+          (cached ? "cached-" : "uncached-") + Base64.getUrlEncoder().withoutPadding().encodeToString(hash)
+      ));
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Unable to open persistent cache, not persisting: " + dir, e);
+      return null;
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("SHA-256 is required by the Java platform", e);
+    }
+  }
+
+  /**
+   * Removes any persisted entries that no longer match their source, checking all entries in parallel.
+   */
+  private void revalidatePersistentCache() {
+    long startNanos = System.nanoTime();
+    Map<String, PersistentCache.Record> records = persistentCache.getRecords();
+    long removed = records.entrySet().parallelStream().filter(entry -> {
+      String servletPath = entry.getKey();
+      PersistentCache.Record record = entry.getValue();
+      try {
+        UrlMetadata current = null;
+        String realPath = servletContext.getRealPath(servletPath);
+        BasicFileAttributes attrs = (realPath == null) ? null : ServletResourceConnection.readAttributes(new File(realPath));
+        if (attrs != null) {
+          current = new UrlMetadata(attrs.lastModifiedTime().toMillis(), attrs.size());
+        } else {
+          URL url = servletContext.getResource(servletPath);
+          if (url != null) {
+            JarResources.Entry jarEntry = (jars == null) ? null : jars.get(url);
+            current = (jarEntry != null) ? jarEntry.metadata : UrlMetadata.fetch(url);
+          }
+        }
+        if (current == null || !record.matches(current.lastModified, current.length)) {
+          removePersisted(servletPath, record);
+          return true;
+        }
+      } catch (IOException e) {
+        logger.log(Level.FINE, "Unable to revalidate, removing: " + servletPath, e);
+        removePersisted(servletPath, record);
+        return true;
+      }
+      return false;
+    }).count();
+    if (logger.isLoggable(Level.INFO)) {
+      logger.info(
+          "Revalidated " + records.size() + " persisted resources, removed " + removed + ", in "
+              + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms: " + this
+      );
+    }
+  }
+
+  /**
+   * Removes a persisted entry, discarding its copy once no longer in use.
+   */
+  private void removePersisted(String servletPath, PersistentCache.Record record) {
+    if (persistentCache.remove(servletPath, record) && record.fileName != null && materializedFiles != null) {
+      materializedFiles.discard(new MaterializedFileCache.Key(servletPath, record.lastModified, record.length));
+    }
+  }
+
+  /**
+   * Registers the {@link #metrics} with the platform MBean server.
+   *
+   * @return  the registered name or {@code null} when unable to register
+   */
+  private ObjectName registerMBean(boolean cached) {
+    String contextPath = servletContext.getContextPath();
+    ObjectName name;
+    try {
+      name = new ObjectName(
+          ServletResourceStore.class.getPackage().getName()
+              + ":type=" + ServletResourceStore.class.getSimpleName()
+              + ",context=" + ObjectName.quote(contextPath.isEmpty() ? "/" : contextPath)
+              + ",path=" + ObjectName.quote(path.toString())
+              + ",cached=" + cached
+      );
+      ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+      return name;
+    } catch (JMException e) {
+      // Another application with the same context path, such as on a different virtual host
+      logger.log(Level.WARNING, "Unable to register MBean: " + this, e);
+      return null;
+    }
+  }
+
+  /**
+   * Starts watching the local directory for this store.
+   *
+   * @return  the watched directory or {@code null} when not a local directory or unable to watch
+   */
+  private WatchedDirectory watchDirectory() {
+    String realPath = servletContext.getRealPath(prefix.isEmpty() ? "/" : prefix);
+    if (realPath != null) {
+      java.nio.file.Path dir = Paths.get(realPath);
+      if (Files.isDirectory(dir)) {
+        try {
+          return new WatchedDirectory(
+              dir,
+              InitParameters.getInt(servletContext, NEGATIVE_CACHE_MAX_ENTRIES_INIT_PARAM, DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES),
+              this::onFileChange
+          );
+        } catch (IOException e) {
+          logger.log(Level.WARNING, "Unable to watch directory, falling back to polling: " + dir, e);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Called by the {@link #watchedDirectory} when a file has changed.
+   *
+   * @param  relativePath  The path relative to this store or {@code null} when all paths may have changed.
+   */
+  private void onFileChange(String relativePath) {
+    if (negativeLookups != null) {
+      if (relativePath == null) {
+        negativeLookups.invalidateAll();
+      } else {
+        String servletPath = prefix + relativePath;
+        negativeLookups.invalidate(servletPath);
+        negativeLookups.invalidatePrefix(servletPath + '/');
+      }
+    }
+    fireInvalidated(relativePath);
+  }
+
+  /**
+   * Adds a listener notified when paths are invalidated, either explicitly or by a detected change.
+   *
+   * @param  listener  Receives the path relative to this store or {@code null} when all paths may have changed.
+   */
+  void addInvalidationListener(Consumer<String> listener) {
+    invalidationListeners.add(listener);
+  }
+
+  void removeInvalidationListener(Consumer<String> listener) {
+    invalidationListeners.remove(listener);
+  }
+
+  private void fireInvalidated(String relativePath) {
+    if (listings != null) {
+      listings.invalidate(relativePath);
+    }
+    for (Consumer<String> listener : invalidationListeners) {
+      listener.accept(relativePath);
+    }
+  }
+
+  /**
+   * Gets how long the result of looking-up the given path may be reused without asking this store again, following
+   * the same freshness rules as this store.  Changes detected within this time are reported to the
+   * {@linkplain #addInvalidationListener(java.util.function.Consumer) invalidation listeners}.
+   *
+   * @return  the time in nanoseconds, {@code 0} when every lookup must ask this store, or {@link Long#MAX_VALUE}
+   *          until the next invalidation
+   */
+  long getLookupTtlNanos(Path path) {
+    return getLookupTtlNanos(prefix + path.toString());
+  }
+
+  private long getLookupTtlNanos(String servletPath) {
+    if (adaptive != null) {
+      return adaptive.getRemainingNanos(servletPath);
+    }
+    if (watchedDirectory != null && watchedDirectory.isWatching()) {
+      return Long.MAX_VALUE;
+    }
+    return negativeTtlNanos;
+  }
+
+  /**
+   * Gets the metadata for a resource accessed by URL.
+   * Concurrent requests for the same resource share a single connection.
+   */
+  UrlMetadata getUrlMetadata(String servletPath, URL url) throws IOException {
+    return urlMetadataFlights.execute(servletPath, () -> {
+      metrics.urlOpen(servletPath);
+      return UrlMetadata.fetch(url);
+    });
+  }
+
+  /**
+   * Builds the {@link #index} of this store.
+   */
+  private void buildIndex(ForkJoinPool pool) {
+    try {
+      ResourceIndex built = ResourceIndex.build(this, pool);
+      index = built;
+      if (logger.isLoggable(Level.INFO)) {
+        logger.info(
+            "Indexed " + built.size() + " resources and " + built.getFileCount() + " local files, left "
+                + built.getUnindexedCount() + " unindexed, in " + TimeUnit.NANOSECONDS.toMillis(built.getBuildNanos())
+                + " ms: " + this
+        );
+      }
+    } catch (RuntimeException e) {
+      logger.log(Level.WARNING, "Unable to build index: " + this, e);
+    }
+  }
+
+  /**
+   * Releases any resources held by this store on application shutdown.
+   */
+  void destroy() {
+    if (objectName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (JMException e) {
+        logger.log(Level.WARNING, null, e);
+      }
+    }
+    if (watchedDirectory != null) {
+      try {
+        watchedDirectory.close();
+      } catch (IOException e) {
+        logger.log(Level.WARNING, null, e);
+      }
+    }
+    bulkResolver.close();
+    if (digests != null) {
+      digests.close();
+    }
+    if (materializedFiles != null) {
+      materializedFiles.close();
+    }
+    if (persistentCache != null) {
+      persistentCache.close();
+    }
+    if (contentCache != null) {
+      contentCache.clear();
+    }
+    if (gzipCache != null) {
+      gzipCache.clear();
+    }
   }
 
   public ServletContext getServletContext() {
@@ -146,6 +849,185 @@ public class ServletResourceStore implements ResourceStore {
     return prefix;
   }
 
+  /**
+   * Discards any information cached by this store about the given path or any path beneath it.
+   * This may be used to make newly added resources visible immediately.
+   *
+   * <p>This does not affect the underlying {@link ServletContextCache}, which is shared by all cached stores and
+   * refreshes on its own schedule.</p>
+   */
+  public void invalidate(Path path) {
+    if (watchedDirectory != null) {
+      watchedDirectory.invalidate(path.toString());
+    }
+    if (adaptive != null) {
+      adaptive.invalidate(prefix + path.toString());
+    }
+    if (negativeLookups != null) {
+      String servletPath = prefix + path.toString();
+      negativeLookups.invalidate(servletPath);
+      negativeLookups.invalidatePrefix(servletPath.endsWith("/") ? servletPath : (servletPath + '/'));
+    }
+    fireInvalidated(path.toString());
+  }
+
+  /**
+   * Discards all information cached by this store.
+   *
+   * @see  #invalidate(com.aoapps.net.Path)
+   */
+  public void invalidateAll() {
+    if (watchedDirectory != null) {
+      watchedDirectory.invalidate(null);
+    }
+    if (adaptive != null) {
+      adaptive.invalidate(null);
+    }
+    if (negativeLookups != null) {
+      negativeLookups.invalidateAll();
+    }
+    fireInvalidated(null);
+  }
+
+  /**
+   * Reads the length and last modified time of a resource.  This is equivalent to checking
+   * {@link ServletResourceConnection#exists()}, {@link ServletResourceConnection#getLength()}, and
+   * {@link ServletResourceConnection#getLastModified()}, and is suited to scanning large numbers of resources.
+   *
+   * <p>Local files and, when the {@linkplain #JAR_INDEX_INIT_PARAM JAR index} is enabled, entries of JAR files are
+   * read from their attributes without opening their content.  Other resources accessed by URL, including all JAR
+   * entries when the JAR index is disabled and they are not in the {@linkplain #PRE_INDEX_INIT_PARAM start-up index},
+   * are opened to read their metadata, then closed without reading their content.</p>
+   *
+   * @return  the attributes or {@code null} when the resource does not exist
+   */
+  public ServletResourceAttributes stat(Path path) throws IOException {
+    try (ServletResourceConnection conn = getResource(path).open()) {
+      return conn.stat();
+    }
+  }
+
+  /**
+   * Reads the length and last modified time of many resources concurrently, as by {@link #stat(com.aoapps.net.Path)}.
+   * At most {@link #BULK_MAX_CONCURRENCY_INIT_PARAM} lookups are performed at a time, on virtual threads when
+   * supported by the Java runtime.
+   *
+   * @return  a new map of the attributes in the order lookups completed, with a {@code null} value for each resource
+   *          that does not exist
+   */
+  public Map<Path, ServletResourceAttributes> statAll(Collection<? extends Path> paths) throws IOException {
+    return bulkResolver.stat(paths);
+  }
+
+  /**
+   * Lists a directory, remembering the listing when cached.
+   *
+   * @param  dir  The servlet path of the directory, ending in a slash.
+   *
+   * @return  the sorted servlet paths, ending in a slash for directories, shared and not to be modified
+   */
+  String[] listDirectory(String dir) {
+    String relativeDir = dir.substring(prefix.length());
+    long startGeneration = 0;
+    if (listings != null) {
+      String[] servletPaths = listings.get(relativeDir);
+      if (servletPaths != null) {
+        return servletPaths;
+      }
+      startGeneration = listings.getGeneration();
+    }
+    Set<String> paths = servletContext.getResourcePaths(dir);
+    String[] servletPaths = (paths == null) ? new String[0] : paths.toArray(new String[paths.size()]);
+    Arrays.sort(servletPaths);
+    if (listings != null) {
+      listings.put(relativeDir, servletPaths, getLookupTtlNanos(dir), startGeneration);
+    }
+    return servletPaths;
+  }
+
+  private String getServletDirectory(Path directory) {
+    String dir = prefix + directory.toString();
+    return dir.endsWith("/") ? dir : (dir + '/');
+  }
+
+  /**
+   * Lazily walks all resources in the given directory and its sub-directories.  Directories are listed one at a time,
+   * as the stream is consumed, so memory use does not grow with the number of resources.  Resources within
+   * <code>/WEB-INF/</code> and <code>/META-INF/</code> are never included, and walking a directory within either is
+   * always empty.
+   *
+   * <p>Directory listings are remembered by cached stores, for as long as lookups are
+   * remembered, and are discarded when invalidated.</p>
+   *
+   * @param  directory  The directory to walk, with or without a trailing slash.
+   *
+   * @return  the resources, directory by directory in sorted order
+   */
+  public Stream<ServletResource> walk(Path directory) {
+    return walkDirectories(directory)
+        .flatMap(files -> files.stream().map(this::getResource));
+  }
+
+  /**
+   * Lazily walks all resources in the given directory and its sub-directories, as by {@link #walk(com.aoapps.net.Path)},
+   * along with their attributes.  The attributes of the resources of each directory are prefetched concurrently,
+   * as by {@link #statAll(Collection)}, when the directory is reached.  Resources removed during the walk are not
+   * included.
+   *
+   * @param  directory  The directory to walk, with or without a trailing slash.
+   *
+   * @return  the resources and their attributes, directory by directory in sorted order
+   */
+  public Stream<Map.Entry<ServletResource, ServletResourceAttributes>> walkAttributes(Path directory) {
+    return walkDirectories(directory).flatMap(files -> {
+      Map<Path, ServletResourceAttributes> attributes;
+      try {
+        attributes = statAll(files);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return files.stream()
+          .filter(file -> attributes.get(file) != null)
+          .map(file -> new AbstractMap.SimpleImmutableEntry<>(getResource(file), attributes.get(file)));
+    });
+  }
+
+  private Stream<List<Path>> walkDirectories(Path directory) {
+    String dir = getServletDirectory(directory);
+    if (ServletResource.isProtectedPath(dir)) {
+      // Never served
+      return Stream.empty();
+    }
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            new DirectoryWalker(this, dir),
+            Spliterator.ORDERED | Spliterator.NONNULL
+        ),
+        false
+    );
+  }
+
+  /**
+   * Gets the counters and latency histograms for this store.
+   */
+  public ServletResourceStoreMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Adds a listener to receive events from this store.
+   */
+  public void addListener(ServletResourceStoreListener listener) {
+    metrics.addListener(listener);
+  }
+
+  /**
+   * Removes a listener previously added.
+   */
+  public void removeListener(ServletResourceStoreListener listener) {
+    metrics.removeListener(listener);
+  }
+
   @Override
   public String toString() {
     return "servlet:" + prefix;
@@ -156,10 +1038,19 @@ public class ServletResourceStore implements ResourceStore {
     return true;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Resources are immutable, so recently used resources are reused, up to
+   * {@link #RESOURCE_CACHE_MAX_ENTRIES_INIT_PARAM}.</p>
+   */
   @Override
   public ServletResource getResource(Path path) {
     // TODO: If path starts with /WEB-INF(/.*) or /META-INF(/.*) (case-insensitive), always not found?
     // TODO: What if we had a local book, not published, contained in /WEB-INF/?
-    return new ServletResource(this, path);
+    if (resources == null) {
+      return new ServletResource(this, path);
+    }
+    return resources.get(path);
   }
 }
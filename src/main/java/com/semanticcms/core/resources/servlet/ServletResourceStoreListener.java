@@ -0,0 +1,90 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+/**
+ * Receives events from a {@link ServletResourceStore}, such as to feed an external metrics system.
+ * All methods default to doing nothing.
+ *
+ * <p>Listeners are called synchronously on the thread performing the operation, so must be fast and thread-safe.</p>
+ *
+ * @see  ServletResourceStore#addListener(com.semanticcms.core.resources.servlet.ServletResourceStoreListener)
+ */
+public interface ServletResourceStoreListener {
+
+  /**
+   * Called after looking for a resource as a local file.
+   *
+   * @param  found  {@code true} when resolved to an existing local file
+   */
+  default void onFileLookup(ServletResourceStore store, String servletPath, boolean found, long nanos) {
+    // Do nothing
+  }
+
+  /**
+   * Called after looking for a resource by URL, which happens when not found as a local file.
+   *
+   * @param  found  {@code true} when resolved to a URL
+   */
+  default void onUrlLookup(ServletResourceStore store, String servletPath, boolean found, long nanos) {
+    // Do nothing
+  }
+
+  /**
+   * Called when a lookup is skipped because the resource was recently not found.
+   */
+  default void onNegativeLookupHit(ServletResourceStore store, String servletPath) {
+    // Do nothing
+  }
+
+  /**
+   * Called when URL metadata is answered from the start-up index.
+   */
+  default void onIndexHit(ServletResourceStore store, String servletPath) {
+    // Do nothing
+  }
+
+  /**
+   * Called when a URL is opened to read metadata or content.
+   */
+  default void onUrlOpen(ServletResourceStore store, String servletPath) {
+    // Do nothing
+  }
+
+  /**
+   * Called when a file is requested for a resource that is not a local file.
+   */
+  default void onMaterializedFileRequest(ServletResourceStore store, String servletPath) {
+    // Do nothing
+  }
+
+  /**
+   * Called after copying a resource, that is not a local file, to a temporary file.
+   *
+   * @param  bytes  The number of bytes copied.
+   */
+  default void onMaterialize(ServletResourceStore store, String servletPath, long bytes, long nanos) {
+    // Do nothing
+  }
+}
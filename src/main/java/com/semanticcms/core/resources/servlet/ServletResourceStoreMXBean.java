@@ -0,0 +1,120 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+/**
+ * The management interface registered for each {@link ServletResourceStore}.
+ *
+ * @see  ServletResourceStoreMetrics
+ * @see  ServletResourceStore#JMX_INIT_PARAM
+ */
+public interface ServletResourceStoreMXBean {
+
+  /**
+   * Gets the number of lookups for resources as local files.
+   */
+  long getFileLookups();
+
+  /**
+   * Gets the number of lookups that resolved to local files.
+   */
+  long getFileLookupHits();
+
+  /**
+   * Gets the number of lookups by URL, which happen when not found as a local file.
+   */
+  long getUrlLookups();
+
+  /**
+   * Gets the number of lookups by URL that resolved.
+   */
+  long getUrlLookupHits();
+
+  /**
+   * Gets the number of lookups skipped because the resource was recently not found.
+   */
+  long getNegativeLookupHits();
+
+  /**
+   * Gets the number of times URL metadata was answered from the start-up index.
+   */
+  long getIndexHits();
+
+  /**
+   * Gets the number of URLs opened.
+   */
+  long getUrlOpens();
+
+  /**
+   * Gets the number of files requested for resources that are not local files.
+   */
+  long getMaterializedFileRequests();
+
+  /**
+   * Gets the number of temporary files created for resources that are not local files.
+   */
+  long getMaterializations();
+
+  /**
+   * Gets the total number of bytes copied to temporary files.
+   */
+  long getMaterializedBytes();
+
+  /**
+   * Gets the mean lookup time, in nanoseconds, including both file and URL lookups.
+   */
+  long getLookupMeanNanos();
+
+  /**
+   * Gets the estimated 99th percentile lookup time, in nanoseconds.
+   */
+  long getLookup99thPercentileNanos();
+
+  /**
+   * Gets the lookup time histogram.  Bucket <code>i</code> counts lookups taking less than
+   * <code>2<sup>i</sup></code> nanoseconds.
+   */
+  long[] getLookupHistogram();
+
+  /**
+   * Gets the mean time, in nanoseconds, to copy a resource to a temporary file.
+   */
+  long getMaterializeMeanNanos();
+
+  /**
+   * Gets the estimated 99th percentile time, in nanoseconds, to copy a resource to a temporary file.
+   */
+  long getMaterialize99thPercentileNanos();
+
+  /**
+   * Gets the materialization time histogram.  Bucket <code>i</code> counts copies taking less than
+   * <code>2<sup>i</sup></code> nanoseconds.
+   */
+  long[] getMaterializeHistogram();
+
+  /**
+   * Resets all counters and histograms.
+   */
+  void reset();
+}
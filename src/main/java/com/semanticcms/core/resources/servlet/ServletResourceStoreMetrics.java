@@ -0,0 +1,244 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for a single {@link ServletResourceStore}, also forwarding each event to any
+ * registered {@link ServletResourceStoreListener}.
+ *
+ * <p>Recording uses striped {@link LongAdder} counters so does not allocate or contend on the hot path.</p>
+ *
+ * @see  ServletResourceStore#getMetrics()
+ */
+public final class ServletResourceStoreMetrics implements ServletResourceStoreMXBean {
+
+  private static final ServletResourceStoreListener[] NO_LISTENERS = {};
+
+  private final ServletResourceStore store;
+
+  private final LongAdder fileLookups = new LongAdder();
+  private final LongAdder fileLookupHits = new LongAdder();
+  private final LongAdder urlLookups = new LongAdder();
+  private final LongAdder urlLookupHits = new LongAdder();
+  private final LongAdder negativeLookupHits = new LongAdder();
+  private final LongAdder indexHits = new LongAdder();
+  private final LongAdder urlOpens = new LongAdder();
+  private final LongAdder materializedFileRequests = new LongAdder();
+  private final LongAdder materializations = new LongAdder();
+  private final LongAdder materializedBytes = new LongAdder();
+  private final LatencyHistogram lookupLatency = new LatencyHistogram();
+  private final LatencyHistogram materializeLatency = new LatencyHistogram();
+
+  /**
+   * Copy-on-write, iterated without allocation.
+   */
+  private volatile ServletResourceStoreListener[] listeners = NO_LISTENERS;
+
+  ServletResourceStoreMetrics(ServletResourceStore store) {
+    this.store = store;
+  }
+
+  synchronized void addListener(ServletResourceStoreListener listener) {
+    ServletResourceStoreListener[] oldListeners = listeners;
+    ServletResourceStoreListener[] newListeners = Arrays.copyOf(oldListeners, oldListeners.length + 1);
+    newListeners[oldListeners.length] = listener;
+    listeners = newListeners;
+  }
+
+  synchronized void removeListener(ServletResourceStoreListener listener) {
+    ServletResourceStoreListener[] oldListeners = listeners;
+    for (int i = 0; i < oldListeners.length; i++) {
+      if (oldListeners[i] == listener) {
+        ServletResourceStoreListener[] newListeners = new ServletResourceStoreListener[oldListeners.length - 1];
+        System.arraycopy(oldListeners, 0, newListeners, 0, i);
+        System.arraycopy(oldListeners, i + 1, newListeners, i, newListeners.length - i);
+        listeners = newListeners;
+        return;
+      }
+    }
+  }
+
+  void fileLookup(String servletPath, boolean found, long nanos) {
+    fileLookups.increment();
+    if (found) {
+      fileLookupHits.increment();
+    }
+    lookupLatency.record(nanos);
+    for (ServletResourceStoreListener listener : listeners) {
+      listener.onFileLookup(store, servletPath, found, nanos);
+    }
+  }
+
+  void urlLookup(String servletPath, boolean found, long nanos) {
+    urlLookups.increment();
+    if (found) {
+      urlLookupHits.increment();
+    }
+    lookupLatency.record(nanos);
+    for (ServletResourceStoreListener listener : listeners) {
+      listener.onUrlLookup(store, servletPath, found, nanos);
+    }
+  }
+
+  void negativeLookupHit(String servletPath) {
+    negativeLookupHits.increment();
+    for (ServletResourceStoreListener listener : listeners) {
+      listener.onNegativeLookupHit(store, servletPath);
+    }
+  }
+
+  void indexHit(String servletPath) {
+    indexHits.increment();
+    for (ServletResourceStoreListener listener : listeners) {
+      listener.onIndexHit(store, servletPath);
+    }
+  }
+
+  void urlOpen(String servletPath) {
+    urlOpens.increment();
+    for (ServletResourceStoreListener listener : listeners) {
+      listener.onUrlOpen(store, servletPath);
+    }
+  }
+
+  void materializedFileRequest(String servletPath) {
+    materializedFileRequests.increment();
+    for (ServletResourceStoreListener listener : listeners) {
+      listener.onMaterializedFileRequest(store, servletPath);
+    }
+  }
+
+  void materialize(String servletPath, long bytes, long nanos) {
+    materializations.increment();
+    materializedBytes.add(bytes);
+    materializeLatency.record(nanos);
+    for (ServletResourceStoreListener listener : listeners) {
+      listener.onMaterialize(store, servletPath, bytes, nanos);
+    }
+  }
+
+  @Override
+  public long getFileLookups() {
+    return fileLookups.sum();
+  }
+
+  @Override
+  public long getFileLookupHits() {
+    return fileLookupHits.sum();
+  }
+
+  @Override
+  public long getUrlLookups() {
+    return urlLookups.sum();
+  }
+
+  @Override
+  public long getUrlLookupHits() {
+    return urlLookupHits.sum();
+  }
+
+  @Override
+  public long getNegativeLookupHits() {
+    return negativeLookupHits.sum();
+  }
+
+  @Override
+  public long getIndexHits() {
+    return indexHits.sum();
+  }
+
+  @Override
+  public long getUrlOpens() {
+    return urlOpens.sum();
+  }
+
+  @Override
+  public long getMaterializedFileRequests() {
+    return materializedFileRequests.sum();
+  }
+
+  @Override
+  public long getMaterializations() {
+    return materializations.sum();
+  }
+
+  @Override
+  public long getMaterializedBytes() {
+    return materializedBytes.sum();
+  }
+
+  private static long getMeanNanos(LatencyHistogram histogram) {
+    long count = histogram.getCount();
+    return (count == 0) ? 0 : (histogram.getTotalNanos() / count);
+  }
+
+  @Override
+  public long getLookupMeanNanos() {
+    return getMeanNanos(lookupLatency);
+  }
+
+  @Override
+  public long getLookup99thPercentileNanos() {
+    return lookupLatency.getPercentileNanos(99);
+  }
+
+  @Override
+  public long[] getLookupHistogram() {
+    return lookupLatency.getBuckets();
+  }
+
+  @Override
+  public long getMaterializeMeanNanos() {
+    return getMeanNanos(materializeLatency);
+  }
+
+  @Override
+  public long getMaterialize99thPercentileNanos() {
+    return materializeLatency.getPercentileNanos(99);
+  }
+
+  @Override
+  public long[] getMaterializeHistogram() {
+    return materializeLatency.getBuckets();
+  }
+
+  @Override
+  public void reset() {
+    fileLookups.reset();
+    fileLookupHits.reset();
+    urlLookups.reset();
+    urlLookupHits.reset();
+    negativeLookupHits.reset();
+    indexHits.reset();
+    urlOpens.reset();
+    materializedFileRequests.reset();
+    materializations.reset();
+    materializedBytes.reset();
+    lookupLatency.reset();
+    materializeLatency.reset();
+  }
+}
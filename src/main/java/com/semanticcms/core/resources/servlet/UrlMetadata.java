@@ -0,0 +1,74 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * The length and last modified time of a resource accessed by {@link URL}.
+ */
+final class UrlMetadata {
+
+  /**
+   * Connects to the given URL to read its metadata.
+   */
+  static UrlMetadata fetch(URL url) throws IOException {
+    if ("file".equals(url.getProtocol())) {
+      // Read attributes directly, since the connection opens the file
+      File file;
+      try {
+        file = new File(url.toURI());
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        file = null;
+      }
+      if (file != null) {
+        BasicFileAttributes attrs = ServletResourceConnection.readAttributes(file);
+        if (attrs != null && attrs.isRegularFile()) {
+          return new UrlMetadata(attrs.lastModifiedTime().toMillis(), attrs.size());
+        }
+      }
+    }
+    URLConnection urlConn = url.openConnection();
+    UrlMetadata metadata = new UrlMetadata(urlConn.getLastModified(), urlConn.getContentLengthLong());
+    // Close input to let underlying URLConnection close.
+    try (InputStream urlIn = urlConn.getInputStream()) {
+      assert urlIn == urlIn : "This assert is to avoid compiler warning: auto-closeable resource urlIn is never referenced in body of corresponding try statement";
+    }
+    return metadata;
+  }
+
+  final long lastModified;
+  final long length;
+
+  UrlMetadata(long lastModified, long length) {
+    this.lastModified = lastModified;
+    this.length = length;
+  }
+}
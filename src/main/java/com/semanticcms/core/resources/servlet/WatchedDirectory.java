@@ -0,0 +1,284 @@
+/*
+ * semanticcms-core-resources-servlet - Redistributable sets of SemanticCMS resources produced by the local servlet container.
+ * Copyright (C) 2026  AO Industries, Inc.
+ *     support@aoindustries.com
+ *     7262 Bull Pen Cir
+ *     Mobile, AL 36695
+ *
+ * This file is part of semanticcms-core-resources-servlet.
+ *
+ * semanticcms-core-resources-servlet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * semanticcms-core-resources-servlet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with semanticcms-core-resources-servlet.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.semanticcms.core.resources.servlet;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the attributes of files beneath the real directory of a store, using a {@link WatchService} to discard
+ * cached attributes as soon as files are created, modified, or deleted.
+ *
+ * <p>This replaces both {@link jakarta.servlet.ServletContext#getRealPath(java.lang.String)} and the
+ * {@link com.aoapps.servlet.ServletContextCache} for files, so changes are visible immediately instead of after the
+ * cache refresh interval.  Resources not found in the directory are still looked-up by URL.</p>
+ */
+final class WatchedDirectory implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(WatchedDirectory.class.getName());
+
+  /**
+   * A snapshot of a file and its attributes.
+   */
+  static final class Snapshot {
+
+    /**
+     * Indicates no file exists at the given path.
+     */
+    static final Snapshot MISSING = new Snapshot(null, null);
+
+    final File file;
+    final BasicFileAttributes attrs;
+
+    Snapshot(File file, BasicFileAttributes attrs) {
+      this.file = file;
+      this.attrs = attrs;
+    }
+  }
+
+  private final Path root;
+  private final int maxMissing;
+  private final Consumer<String> onChange;
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  /**
+   * The paths known to have no file, kept apart from the snapshots since any number of paths may be requested.
+   * Cleared when full.
+   */
+  private final Set<String> missing = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Incremented on every change, used to avoid caching a snapshot that was read concurrently with a change.
+   */
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Cleared when the watching thread stops, after which snapshots are no longer cached.
+   */
+  private volatile boolean watching = true;
+
+  /**
+   * Starts watching the given directory tree.
+   *
+   * @param  maxMissing  The maximum number of paths remembered to have no file.
+   * @param  onChange  Called with the path, relative to the root and beginning with a slash, of each changed file or
+   *                   directory.  Called with {@code null} when events may have been lost and all paths should be
+   *                   considered changed.
+   */
+  WatchedDirectory(Path root, int maxMissing, Consumer<String> onChange) throws IOException {
+    this.root = root.toRealPath();
+    this.maxMissing = maxMissing;
+    this.onChange = onChange;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    boolean success = false;
+    try {
+      registerAll(this.root);
+      success = true;
+    } finally {
+      if (!success) {
+        watchService.close();
+      }
+    }
+    Thread thread = new Thread(this::run, WatchedDirectory.class.getName() + ": " + this.root);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void registerAll(Path start) throws IOException {
+    Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        WatchKey key = dir.register(
+            watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_DELETE,
+            StandardWatchEventKinds.ENTRY_MODIFY
+        );
+        directories.put(key, dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Checks if the given file is within the watched directory tree.
+   */
+  boolean contains(Path file) {
+    return file.toAbsolutePath().normalize().startsWith(root);
+  }
+
+  /**
+   * Gets the snapshot for the given path relative to the root.
+   *
+   * @param  relativePath  Must begin with a slash.
+   */
+  Snapshot getSnapshot(String relativePath) throws IOException {
+    Snapshot snapshot = snapshots.get(relativePath);
+    if (snapshot != null) {
+      return snapshot;
+    }
+    if (missing.contains(relativePath)) {
+      return Snapshot.MISSING;
+    }
+    long startGeneration = generation.get();
+    Path resolved = root.resolve(relativePath.substring(1)).normalize();
+    if (!resolved.startsWith(root)) {
+      snapshot = Snapshot.MISSING;
+    } else {
+      File file = resolved.toFile();
+      BasicFileAttributes attrs = ServletResourceConnection.readAttributes(file);
+      snapshot = (attrs == null) ? Snapshot.MISSING : new Snapshot(file, attrs);
+    }
+    if (watching) {
+      // Cache before checking for changes, since a change is counted before its snapshots are discarded
+      if (snapshot == Snapshot.MISSING) {
+        if (missing.size() >= maxMissing) {
+          missing.clear();
+        }
+        missing.add(relativePath);
+        if (!watching || generation.get() != startGeneration) {
+          missing.remove(relativePath);
+        }
+      } else if (
+          snapshots.putIfAbsent(relativePath, snapshot) == null
+              && (!watching || generation.get() != startGeneration)
+      ) {
+        snapshots.remove(relativePath, snapshot);
+      }
+    }
+    return snapshot;
+  }
+
+  /**
+   * Discards the snapshot for the given path and any path beneath it.
+   *
+   * @param  relativePath  Must begin with a slash, or {@code null} to discard all snapshots.
+   */
+  void invalidate(String relativePath) {
+    generation.incrementAndGet();
+    if (relativePath == null) {
+      snapshots.clear();
+      missing.clear();
+    } else {
+      snapshots.remove(relativePath);
+      missing.remove(relativePath);
+      // May be a directory
+      String dirPrefix = relativePath + '/';
+      snapshots.keySet().removeIf(path -> path.startsWith(dirPrefix));
+      missing.removeIf(path -> path.startsWith(dirPrefix));
+    }
+  }
+
+  private void changed(String relativePath) {
+    invalidate(relativePath);
+    onChange.accept(relativePath);
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        Path dir = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          WatchEvent.Kind<?> kind = event.kind();
+          if (kind == StandardWatchEventKinds.OVERFLOW || dir == null) {
+            changed(null);
+          } else {
+            Path child = dir.resolve((Path) event.context());
+            StringBuilder relativePath = new StringBuilder();
+            for (Path element : root.relativize(child)) {
+              relativePath.append('/').append(element);
+            }
+            if (
+                kind == StandardWatchEventKinds.ENTRY_CREATE
+                    && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)
+            ) {
+              try {
+                registerAll(child);
+              } catch (IOException e) {
+                logger.log(Level.WARNING, "Unable to watch new directory: " + child, e);
+              }
+            }
+            changed(relativePath.toString());
+          }
+        }
+        if (!key.reset()) {
+          // Directory no longer accessible
+          directories.remove(key);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // Closed normally
+    } catch (InterruptedException e) {
+      // Restore the interrupted status
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException | Error e) {
+      logger.log(Level.SEVERE, "Directory watching stopped: " + root, e);
+      throw e;
+    } finally {
+      // Can no longer trust cached snapshots
+      watching = false;
+      snapshots.clear();
+      missing.clear();
+    }
+  }
+
+  /**
+   * Checks if changes are still being watched.
+   */
+  boolean isWatching() {
+    return watching;
+  }
+
+  /**
+   * Stops watching.
+   */
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}